@@ -36,6 +36,50 @@ public class Settings {
   public static boolean ThrowException = true; // throw FindFailed exception
   public static float AutoWaitTimeout = 3f; // in seconds
   public static float WaitScanRate = 3f; // frames per second
+  /**
+   * true = while waiting, the scan rate adapts (default: false = fixed WaitScanRate):
+   * scans come at up to WaitScanRateMax right after the screen changed or after an own mouse/keyboard action
+   * and slow down to the Region's WaitScanRate, while the screen does not change
+   */
+  public static boolean WaitScanAdaptive = false;
+  public static float WaitScanRateMax = 20f; // frames per second
+  /**
+   * max part of the time a wait may spend in scanning (default: 0 = off)
+   * <br>0.5 = at least as long a pause as the scan took
+   */
+  public static float WaitScanBudget = 0;
+  /**
+   * true = waits and observers on the same screen share their captures (default: false):
+   * the whole screen is captured at most once per 1/WaitScanRateMax seconds and each one takes its region from it
+   * <br>saves captures with many waits/observers running in parallel on one screen
+   */
+  public static boolean WaitScanShared = false;
+  /**
+   * true = while waiting, the capture for the next scan is taken on a helper thread (default: false),
+   * timed to be ready when the scan is due, so a scan only has to search
+   * <br>when scanning without pause, the next capture runs while the current one is searched
+   */
+  public static boolean WaitScanPipelined = false;
+  /**
+   * max age (msec) of a capture of the whole screen, that Screen.capture(rect) may take its image from (default: 0 = off)
+   * <br>so searches in different regions of a screen right after one another need only one capture
+   * <br>our own mouse/keyboard actions always lead to a new capture
+   * <br>the captured images then share their pixels with the capture of the screen and must not be changed
+   */
+  public static int CaptureMaxAge = 0;
+  /**
+   * true = on Linux the screen is captured with the MIT-SHM extension of X11 (default: false),
+   * which saves the copying of the pixels through the X11 connection
+   * <br>only with a local display, otherwise (or if not available) the capture is done as usual
+   */
+  public static boolean CaptureXShm = false;
+  /**
+   * number of recent captures of the whole screen kept per screen with their time (default: 0 = none)
+   * <br>kept off-heap (4 bytes per pixel: about 8 MB per frame for 1920x1080) and available
+   * with ScreenDevice.getFrameHistory() (frameAt(time), framesSince(time))
+   * <br>besides Screen.capture(), the shared captures of WaitScanShared and CaptureMaxAge are kept
+   */
+  public static int CaptureHistory = 0;
   public static float ObserveScanRate = 3f; // frames per second
   public static int ObserveMinChangedPixels = 50; // in pixels
   public static int RepeatWaitTime = 1; // wait 1 second for visual to vanish after action
@@ -46,9 +90,92 @@ public class Settings {
 
   public static boolean CheckLastSeen = true;
   public static float CheckLastSeenSimilar = 0.95f;
+  /**
+   * not found at lastSeen: margin in pixels around lastSeen for the next search (0 = no search around lastSeen)
+   * <br>each further area has 4 times the margin of the one before (see CheckLastSeenRings),
+   * after that the whole region is searched
+   */
+  public static int CheckLastSeenMargin = 16;
+  /**
+   * number of searches in growing areas around lastSeen (16, 64, 256 pixels with the default margin)
+   */
+  public static int CheckLastSeenRings = 3;
+  /**
+   * not found at lastSeen: number of other places, where the image was found recently (most often first),
+   * that are searched (with CheckLastSeenMargin around), before the areas around lastSeen (0 = none)
+   */
+  public static int CheckLastSeenPriors = 3;
+  /**
+   * true = the lastSeen of images is kept on disk (default: false), so the first find of an image
+   * in a new script run can already use it (the image content and the screen layout have to be the same)
+   * <br>then lastSeen is also checked for plain images, not only for patterns
+   */
+  public static boolean CheckLastSeenStore = false;
+  /**
+   * the file for CheckLastSeenStore (null: lastseen.txt in the SikulixStore folder of the app data)
+   */
+  public static String CheckLastSeenStoreFile = null;
+
+  /**
+   * true = while waiting (wait, exists, waitVanish, ...) a new scan only searches again,
+   * where the screen has changed since the last scan (default: true)
+   * <br>no change at all: the search is skipped
+   */
+  public static boolean CheckUnchanged = true;
+
+  /**
+   * true = large images are first searched in a downsized image pyramid (default: true)
+   * <br>only candidates found there are verified in the original resolution
+   * <br>falls back to a full search, if none of the candidates can be verified
+   */
+  public static boolean FindDownsized = true;
+  /**
+   * number of pyramid levels (each level halves the resolution of the next finer one)
+   */
+  public static int FindDownsizedLevels = 2;
+  /**
+   * number of candidates (best first) from a downsized level verified in the original,
+   * before the level is given up, if none of them is found there
+   * <br>after a match is found, the next candidates are verified as well,
+   * as long as their downsized score is near enough to the match's score, that they might be better
+   */
+  public static int FindDownsizedCandidates = 3;
+
+  /**
+   * true = exact patterns (similarity &gt;= 0.99, no mask) are first searched for
+   * pixel-identical matches (default: true), which is much faster
+   * <br>only if none is found, the normal search follows
+   * <br>not used with findAll, which always needs the normal search for the near-identical matches
+   */
+  public static boolean FindExact = true;
+
+  /**
+   * true = images are first matched in grayscale (default: false), which takes about a third of the time,
+   * only the best candidates are then verified in color
+   * <br>not used for images, whose colors differ much more than their brightness (flat in gray)
+   * <br>can be set per Pattern (Pattern.grayFirst)
+   */
+  public static boolean FindGrayFirst = false;
+
+  /**
+   * true = the matching of large images is split into overlapping bands,
+   * that are matched in parallel on all cores (default: false)
+   * <br>a Region created afterwards takes this as its initial value (see Region.setFindParallel)
+   */
+  public static boolean FindParallel = false;
+  /**
+   * minimum size (width x height in pixels) of the image searched in, to be matched in parallel
+   */
+  public static int FindParallelMinSize = 500000;
 
   public static org.sikuli.script.ImageCallback ImageCallback = null;
 
+  /**
+   * max number of images/patterns kept prepared for searching (0 = no caching)
+   * <br>repeated searches for the same image then only have to do the matching
+   */
+  public static int FindCompiledCache = 100;
+
   private static int ImageCache = 64;
 
   public static void setImageCache(int max) {
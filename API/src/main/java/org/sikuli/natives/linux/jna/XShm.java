@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2010-2021, sikuli.org, sikulix.com - MIT license
+ */
+package org.sikuli.natives.linux.jna;
+
+import java.util.Arrays;
+import java.util.List;
+import com.sun.jna.Library;
+import com.sun.jna.Native;
+import com.sun.jna.NativeLong;
+import com.sun.jna.Pointer;
+import com.sun.jna.Structure;
+import com.sun.jna.platform.unix.X11;
+
+/**
+ * JNA bindings to the MIT-SHM extension of X11 (libXext) and the SysV shared memory calls of libc
+ */
+
+public interface XShm extends Library {
+
+  XShm INSTANCE = Native.load("Xext", XShm.class);
+
+  boolean XShmQueryExtension(X11.Display display);
+
+  /**
+   * @return pointer to an XImage (to be read with XImage), whose pixels are in the segment of shminfo
+   */
+  Pointer XShmCreateImage(X11.Display display, X11.Visual visual, int depth, int format, Pointer data,
+                          XShmSegmentInfo shminfo, int width, int height);
+
+  boolean XShmAttach(X11.Display display, XShmSegmentInfo shminfo);
+
+  boolean XShmDetach(X11.Display display, XShmSegmentInfo shminfo);
+
+  boolean XShmGetImage(X11.Display display, X11.Drawable drawable, Pointer image, int x, int y,
+                       NativeLong planeMask);
+
+  class XShmSegmentInfo extends Structure {
+    public NativeLong shmseg;
+    public int shmid;
+    public Pointer shmaddr;
+    public int readOnly;
+
+    @Override
+    protected List<String> getFieldOrder() {
+      return Arrays.asList("shmseg", "shmid", "shmaddr", "readOnly");
+    }
+  }
+
+  /**
+   * the XImage struct of Xlib (the function pointers are not used)
+   */
+  class XImage extends Structure {
+    public int width;
+    public int height;
+    public int xoffset;
+    public int format;
+    public Pointer data;
+    public int byte_order;
+    public int bitmap_unit;
+    public int bitmap_bit_order;
+    public int bitmap_pad;
+    public int depth;
+    public int bytes_per_line;
+    public int bits_per_pixel;
+    public NativeLong red_mask;
+    public NativeLong green_mask;
+    public NativeLong blue_mask;
+    public Pointer obdata;
+    public Pointer[] f = new Pointer[6];
+
+    public XImage(Pointer pointer) {
+      super(pointer);
+      read();
+    }
+
+    @Override
+    protected List<String> getFieldOrder() {
+      return Arrays.asList("width", "height", "xoffset", "format", "data", "byte_order", "bitmap_unit",
+          "bitmap_bit_order", "bitmap_pad", "depth", "bytes_per_line", "bits_per_pixel",
+          "red_mask", "green_mask", "blue_mask", "obdata", "f");
+    }
+  }
+
+  interface SysV extends Library {
+
+    SysV INSTANCE = Native.load("c", SysV.class);
+
+    int IPC_PRIVATE = 0;
+    int IPC_CREAT = 01000;
+    int IPC_RMID = 0;
+
+    int shmget(int key, NativeLong size, int shmflg);
+
+    Pointer shmat(int shmid, Pointer shmaddr, int shmflg);
+
+    int shmdt(Pointer shmaddr);
+
+    int shmctl(int shmid, int cmd, Pointer buf);
+  }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2010-2021, sikuli.org, sikulix.com - MIT license
+ */
+
+package org.sikuli.script;
+
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.imgproc.Imgproc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * an ImageMatcher for pixel-identical matches only: a 2D rolling hash (Rabin-Karp) over rows and columns,
+ * where positions with the target's hash are verified pixel by pixel
+ * <br>the time depends on the size of the image searched in, but not on the size of the target
+ * <br>used automatically for single finds of exact patterns (similarity &gt;= 0.99, no mask) with Settings.FindExact
+ * <br>the score of a match is always 1.0, the matches come in reading order
+ */
+public class ExactMatcher implements ImageMatcher {
+
+  public static final String NAME = "exact";
+
+  // odd bases: the hashes are taken modulo 2^64 (long overflow), collisions are sorted out by verifying
+  private static final long rowBase = 1000003L;
+  private static final long colBase = 998244353L;
+
+  @Override
+  public String getName() {
+    return NAME;
+  }
+
+  @Override
+  public List<Match> find(Mat where, Mat what, Mat mask, double similarity, int maxMatches) {
+    List<Match> matches = new ArrayList<>();
+    if (where.channels() != what.channels()) {
+      if (what.channels() != 1 || where.channels() != 3) {
+        return matches;
+      }
+      Mat whereGray = new Mat();
+      Imgproc.cvtColor(where, whereGray, Imgproc.COLOR_BGR2GRAY);
+      where = whereGray;
+    }
+    if (where.depth() != CvType.CV_8U || what.depth() != CvType.CV_8U) {
+      return matches;
+    }
+    int width = where.cols();
+    int height = where.rows();
+    int targetW = what.cols();
+    int targetH = what.rows();
+    if (targetW > width || targetH > height) {
+      return matches;
+    }
+    int[] image = getPixels(where);
+    int[] target = getPixels(what);
+
+    long rowPower = power(rowBase, targetW);
+    long colPower = power(colBase, targetH);
+    long targetHash = 0;
+    long[] targetRowHash = new long[1];
+    for (int row = 0; row < targetH; row++) {
+      rowHashes(target, row * targetW, targetW, targetW, rowPower, targetRowHash);
+      targetHash = targetHash * colBase + targetRowHash[0];
+    }
+
+    int positions = width - targetW + 1;
+    // the row hashes of the last targetH rows are needed to roll them out again
+    long[][] rowRing = new long[targetH][positions];
+    long[] rowHash = new long[positions];
+    long[] colHash = new long[positions];
+    for (int y = 0; y < height; y++) {
+      rowHashes(image, y * width, width, targetW, rowPower, rowHash);
+      long[] oldRowHash = rowRing[y % targetH];
+      boolean rollOut = y >= targetH;
+      for (int x = 0; x < positions; x++) {
+        colHash[x] = colHash[x] * colBase + rowHash[x] - (rollOut ? oldRowHash[x] * colPower : 0);
+      }
+      rowRing[y % targetH] = rowHash;
+      rowHash = oldRowHash;
+      if (y < targetH - 1) {
+        continue;
+      }
+      int top = y - targetH + 1;
+      for (int x = 0; x < positions; x++) {
+        if (colHash[x] == targetHash && isSame(image, width, x, top, target, targetW, targetH)) {
+          matches.add(new Match(x, top, targetW, targetH, 1.0, null));
+          if (maxMatches > 0 && matches.size() >= maxMatches) {
+            return matches;
+          }
+        }
+      }
+    }
+    return matches;
+  }
+
+  // a pixel as one int (B G R or gray)
+  private static int[] getPixels(Mat mat) {
+    int channels = mat.channels();
+    byte[] bytes = new byte[(int) mat.total() * channels];
+    Mat continuous = mat.isContinuous() ? mat : mat.clone();
+    continuous.get(0, 0, bytes);
+    int[] pixels = new int[(int) mat.total()];
+    if (channels == 1) {
+      for (int n = 0; n < pixels.length; n++) {
+        pixels[n] = bytes[n] & 0xff;
+      }
+    } else {
+      for (int n = 0, b = 0; n < pixels.length; n++, b += channels) {
+        int pixel = 0;
+        for (int c = 0; c < channels; c++) {
+          pixel = (pixel << 8) | (bytes[b + c] & 0xff);
+        }
+        pixels[n] = pixel;
+      }
+    }
+    return pixels;
+  }
+
+  // hash of every window of windowW pixels in a row (rolling: the next pixel in, the first one out)
+  private static void rowHashes(int[] pixels, int start, int rowW, int windowW, long rowPower, long[] hashes) {
+    long hash = 0;
+    for (int n = 0; n < windowW; n++) {
+      hash = hash * rowBase + pixels[start + n];
+    }
+    hashes[0] = hash;
+    for (int x = 1; x <= rowW - windowW; x++) {
+      hash = hash * rowBase + pixels[start + x + windowW - 1] - pixels[start + x - 1] * rowPower;
+      hashes[x] = hash;
+    }
+  }
+
+  private static boolean isSame(int[] image, int width, int x, int y, int[] target, int targetW, int targetH) {
+    for (int row = 0; row < targetH; row++) {
+      int imageStart = (y + row) * width + x;
+      int targetStart = row * targetW;
+      for (int col = 0; col < targetW; col++) {
+        if (image[imageStart + col] != target[targetStart + col]) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  private static long power(long base, int exponent) {
+    long result = 1;
+    for (int n = 0; n < exponent; n++) {
+      result *= base;
+    }
+    return result;
+  }
+}
@@ -9,11 +9,15 @@ import org.sikuli.basics.Debug;
 import org.sikuli.basics.Settings;
 import org.sikuli.support.Commons;
 import org.sikuli.support.devices.IScreen;
+import org.sikuli.support.devices.ScreenFrame;
 
 import java.awt.Color;
 import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.DoubleFunction;
 import java.util.regex.Matcher;
 
 public class Finder implements Iterator<Match> {
@@ -79,11 +83,82 @@ public class Finder implements Iterator<Match> {
   private void initScreenFinder(ScreenImage simg, Region region) {
     setScreenImage(simg);
     _region = region;
+    if (region != null) {
+      _findInput.setParallel(region.isFindParallel());
+    }
     resetFindChanges();
    }
 
+  private Mat screenMat = null;
+  private Mat spareMat = null;
+  private Mat notFoundMat = null;
+  private Mat previousMat = null;
+
   protected void setScreenImage(ScreenImage simg) {
-    _findInput.setSource(Commons.makeMat(simg.getImage()));
+    // a repeating Finder reuses its cvMats for every new capture
+    Mat reuse = screenMat;
+    previousMat = null;
+    if (Settings.CheckUnchanged && screenMat != null && screenMat == notFoundMat) {
+      // the capture searched last without success is kept to be compared with the new one
+      previousMat = screenMat;
+      reuse = spareMat;
+      spareMat = screenMat;
+    }
+    screenMat = makeScreenMat(simg, reuse);
+    _findInput.setSource(screenMat);
+  }
+
+  /**
+   * internal use: a pipelined repeating Finder (see Region) gets its captures already converted
+   *
+   * @param simg the capture
+   * @param mat  its cvMat, made with makeScreenMat into a cvMat from getSpareScreenMat
+   */
+  protected void setScreenImage(ScreenImage simg, Mat mat) {
+    previousMat = null;
+    if (Settings.CheckUnchanged && screenMat != null && screenMat == notFoundMat) {
+      previousMat = screenMat;
+    }
+    screenMat = mat;
+    spareMat = null;
+    _findInput.setSource(screenMat);
+  }
+
+  // the next capture is converted, while the current one is still searched and compared with the one before
+  private final Mat[] pipelineMats = new Mat[3];
+
+  /**
+   * internal use: for a pipelined repeating Finder (see Region)
+   *
+   * @return a cvMat for the next capture, that is neither the current one nor the one compared with
+   */
+  protected Mat getSpareScreenMat() {
+    for (int n = 0; n < pipelineMats.length; n++) {
+      if (pipelineMats[n] == null) {
+        pipelineMats[n] = new Mat();
+      }
+      if (pipelineMats[n] != screenMat && pipelineMats[n] != previousMat) {
+        return pipelineMats[n];
+      }
+    }
+    return new Mat();
+  }
+
+  // part of a shared frame: its cvMat is converted only once for all consumers, here only copied
+  static Mat makeScreenMat(ScreenImage simg, Mat reuse) {
+    ScreenFrame frame = simg.getFrame();
+    if (frame == null || !frame.retain()) {
+      return Commons.makeMat(simg.getImage(), reuse);
+    }
+    try {
+      Rectangle bounds = frame.getBounds();
+      Rectangle rect = simg.getRect();
+      Mat mat = reuse == null ? new Mat() : reuse;
+      frame.getMat().submat(new Rect(rect.x - bounds.x, rect.y - bounds.y, rect.width, rect.height)).copyTo(mat);
+      return mat;
+    } finally {
+      frame.release();
+    }
   }
 
   private void initMatFinder(Mat mat) {
@@ -104,8 +179,9 @@ public class Finder implements Iterator<Match> {
    * internal use: repeat with same Finder
    */
   protected void findRepeat() {
-    _results = Finder2.find(_findInput);
+    setResults(findInChanged());
     currentMatchIndex = 0;
+    checkNotFound();
   }
 
   /**
@@ -113,10 +189,69 @@ public class Finder implements Iterator<Match> {
    */
   protected void findAllRepeat() {
     Debug timing = Debug.startTimer("Finder.findAll");
-    _results = Finder2.find(_findInput);
+    setResults(findInChanged());
     currentMatchIndex = 0;
+    checkNotFound();
     timing.end();
   }
+
+  // the capture is remembered, if the image was not found in it (not for text: there is no target to limit the area)
+  private void checkNotFound() {
+    notFoundMat = null;
+    if (screenMat != null && _findInput.getBase() == screenMat && !_findInput.isText() && !hasNext()) {
+      notFoundMat = screenMat;
+    }
+  }
+
+  private int scanChange = -1;
+
+  /**
+   * internal use: what the last repeat found out about the screen
+   *
+   * @return -1 not known (full search), 0 unchanged (search skipped), 1 changed
+   */
+  protected int getScanChange() {
+    return scanChange;
+  }
+
+  // only changed parts of the capture can contain a match, that was not there before
+  private FindResult2 findInChanged() {
+    scanChange = -1;
+    Rect changed = null;
+    if (previousMat != null) {
+      changed = Finder2.getChangedArea(previousMat, screenMat);
+      if (changed == null) {
+        log(lvl + 1, "findRepeat: unchanged: not searched again");
+        scanChange = 0;
+        return _results;
+      }
+      scanChange = 1;
+    }
+    if (scaledFind) {
+      return findScaled(_pattern);
+    }
+    if (changed == null) {
+      return Finder2.find(_findInput);
+    }
+    Mat target = _findInput.getTarget();
+    int areaX = Math.max(0, changed.x - target.cols() + 1);
+    int areaY = Math.max(0, changed.y - target.rows() + 1);
+    int areaW = Math.min(screenMat.cols(), changed.x + changed.width + target.cols() - 1) - areaX;
+    int areaH = Math.min(screenMat.rows(), changed.y + changed.height + target.rows() - 1) - areaY;
+    if (areaW < target.cols() || areaH < target.rows() || areaW * areaH > screenMat.total() / 2) {
+      return Finder2.find(_findInput);
+    }
+    log(lvl + 1, "findRepeat: searching only in changed (%d,%d %dx%d)", areaX, areaY, areaW, areaH);
+    Mat area = screenMat.submat(new Rect(areaX, areaY, areaW, areaH));
+    _findInput.setSource(area);
+    FindResult2 results = Finder2.find(_findInput);
+    _findInput.setSource(screenMat);
+    area.release();
+    if (results != null) {
+      results.addOffset(areaX, areaY);
+    }
+    return results;
+  }
 //</editor-fold>
 
   //<editor-fold defaultstate="collapsed" desc="find">
@@ -169,6 +304,70 @@ public class Finder implements Iterator<Match> {
     return mat;
   }
 
+  private static final Map<String, CompiledTarget> compiledTargets =
+      new LinkedHashMap<String, CompiledTarget>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CompiledTarget> eldest) {
+          return size() > Settings.FindCompiledCache;
+        }
+      };
+
+  /**
+   * remove all cached compiled targets (the prepared cvMats of images and patterns)
+   */
+  public static void clearCompiledTargets() {
+    synchronized (compiledTargets) {
+      compiledTargets.clear();
+    }
+  }
+
+  /**
+   * get the prepared target (cvMat, mask, statistics) for the image from the cache
+   * or compile it and cache it for later use
+   * <br>an entry is only used, if it was made from the same in-memory image, mask and callback
+   *
+   * @param img            the image to search
+   * @param oneTimeResize  resize factor of a pattern (0 if none)
+   * @param mask           mask of a pattern (null or empty if none)
+   * @return the compiled target
+   */
+  private CompiledTarget getCompiledTarget(Image img, float oneTimeResize, Mat mask) {
+    float factor = oneTimeResize;
+    if (factor == 0 && Settings.AlwaysResize > 0 && Settings.AlwaysResize != 1) {
+      factor = Settings.AlwaysResize;
+    }
+    ImageCallback callback = factor > 0 && factor != 1 ? null : Settings.ImageCallback;
+    if (mask != null && mask.empty()) {
+      mask = null;
+    }
+    BufferedImage source = img.get();
+    String key = String.format("%s|%.3f|%d|%d",
+        img.getURL() == null ? "bimg@" + System.identityHashCode(source) : img.getURL().toString(),
+        factor, System.identityHashCode(mask), System.identityHashCode(callback));
+    CompiledTarget compiled;
+    synchronized (compiledTargets) {
+      compiled = compiledTargets.get(key);
+    }
+    if (compiled != null && compiled.isMadeFrom(source, mask, callback)) {
+      return compiled;
+    }
+    Mat target = possibleImageResizeOrCallback(img, oneTimeResize);
+    Mat targetMask = mask;
+    if (mask != null && (mask.cols() != target.cols() || mask.rows() != target.rows())) {
+      // a given mask has to be resized together with the image
+      targetMask = Commons.getNewMat();
+      Imgproc.resize(mask, targetMask, target.size(), 0, 0, Imgproc.INTER_NEAREST);
+    }
+    compiled = CompiledTarget.compile(target, targetMask);
+    compiled.setMadeFrom(source, mask, callback);
+    if (Settings.FindCompiledCache > 0) {
+      synchronized (compiledTargets) {
+        compiledTargets.put(key, compiled);
+      }
+    }
+    return compiled;
+  }
+
   /**
    * do a find op with the given pattern in the Finder's image
    * (hasNext() and next() will reveal possible match results)
@@ -183,21 +382,57 @@ public class Finder implements Iterator<Match> {
     }
     if (aPtn.isValid()) {
       _pattern = aPtn;
-      if (_pattern.hasMask()) {
-        _findInput.setMask(_pattern.getMask());
-      }
       _image = aPtn.getImage();
-      _findInput.setTarget(possibleImageResizeOrCallback(_image, aPtn.getResize()));
+      scaledFind = aPtn.hasScaleRange() && aPtn.getMatcher() == null && _findInput.getBase() != null;
+      if (scaledFind) {
+        setResults(findScaled(aPtn));
+        currentMatchIndex = 0;
+        checkNotFound();
+        return aPtn.getFilename();
+      }
+      _findInput.setTarget(getCompiledTarget(_image, aPtn.getResize(), aPtn.getMask()));
+      _findInput.setMatcher(aPtn.getMatcher());
+      _findInput.setSampled(aPtn.isSampled(), aPtn.isSampledGuaranteed());
+      _findInput.setGrayFirst(aPtn.isGrayFirst());
       _findInput.setSimilarity(aPtn.getSimilar());
       _findInput.setIsPattern();
-      _results = Finder2.find(_findInput);
+      setResults(Finder2.find(_findInput));
       currentMatchIndex = 0;
+      checkNotFound();
       return aPtn.getFilename();
     } else {
       return null;
     }
   }
 
+  private boolean scaledFind = false;
+
+  // the scale found is remembered with the image, to be tried first the next time
+  private FindResult2 findScaled(Pattern aPtn) {
+    Mat source = _findInput.getBase();
+    FindResult2 results = Finder2.findScaled(scale -> {
+      CompiledTarget compiled = getCompiledTarget(_image, (float) scale, aPtn.getMask());
+      if (compiled.target.cols() > source.cols() || compiled.target.rows() > source.rows()) {
+        return null;
+      }
+      FindInput2 findInput = new FindInput2();
+      findInput.setSource(source);
+      if (compiled.grayColor && source.channels() > 1) {
+        // made only once for all scales
+        findInput.setSourceGray(_findInput.getBaseGray());
+      }
+      findInput.setTarget(compiled);
+      findInput.setSimilarity(aPtn.getSimilar());
+      findInput.setIsPattern();
+      findInput.setParallel(_findInput.isParallel());
+      return findInput;
+    }, aPtn.getScaleMin(), aPtn.getScaleMax(), _image.getLastSeenScale());
+    if (results != null) {
+      _image.setLastSeenScale((float) results.getScale());
+    }
+    return results;
+  }
+
   /**
    * do a find op with the given image in the Finder's image
    * (hasNext() and next() will reveal possible match results)
@@ -212,10 +447,13 @@ public class Finder implements Iterator<Match> {
     }
     if (img.isValid()) {
       _image = img;
-      _findInput.setTarget(possibleImageResizeOrCallback(img));
+      scaledFind = false;
+      _findInput.setTarget(getCompiledTarget(img, 0, null));
+      _findInput.setGrayFirst(Settings.FindGrayFirst);
       _findInput.setSimilarity(Settings.MinSimilarity);
-      _results = Finder2.find(_findInput);
+      setResults(Finder2.find(_findInput));
       currentMatchIndex = 0;
+      checkNotFound();
       return img.getFilename();
     } else if (img.isUseable()) {
       return find(new Pattern(img));
@@ -255,6 +493,17 @@ public class Finder implements Iterator<Match> {
   //</editor-fold>
 
   //<editor-fold defaultstate="collapsed" desc="findAll">
+  private int findAllMaxMatches = 0;
+
+  /**
+   * limit the number of matches returned by the next findAll ops
+   * <br>(a Pattern's own maxMatches takes precedence)
+   *
+   * @param max max number of matches (0 = no limit)
+   */
+  public void setFindAllMaxMatches(int max) {
+    findAllMaxMatches = max;
+  }
 
   /**
    * do a findAll op with the given image or the given text in the Finder's image
@@ -294,16 +543,17 @@ public class Finder implements Iterator<Match> {
     if (aPtn.isValid()) {
       _pattern = aPtn;
       _image = aPtn.getImage();
-      _findInput.setTarget(possibleImageResizeOrCallback(_image, aPtn.getResize()));
+      scaledFind = false;
+      _findInput.setTarget(getCompiledTarget(_image, aPtn.getResize(), aPtn.getMask()));
+      _findInput.setMatcher(aPtn.getMatcher());
       _findInput.setSimilarity(aPtn.getSimilar());
       _findInput.setIsPattern();
       _findInput.setFindAll();
-      if (_pattern.hasMask()) {
-        _findInput.setMask(_pattern.getMask());
-      }
+      _findInput.setMaxMatches(aPtn.getMaxMatches() > 0 ? aPtn.getMaxMatches() : findAllMaxMatches);
       Debug timing = Debug.startTimer("Finder.findAll");
-      _results = Finder2.find(_findInput);
+      setResults(Finder2.find(_findInput));
       currentMatchIndex = 0;
+      checkNotFound();
       timing.end();
       return aPtn.getFilename();
     } else {
@@ -325,12 +575,16 @@ public class Finder implements Iterator<Match> {
     }
     if (img.isValid()) {
       _image = img;
-      _findInput.setTarget(possibleImageResizeOrCallback(img));
+      scaledFind = false;
+      _findInput.setTarget(getCompiledTarget(img, 0, null));
+      _findInput.setGrayFirst(Settings.FindGrayFirst);
       _findInput.setSimilarity(Settings.MinSimilarity);
       _findInput.setFindAll();
+      _findInput.setMaxMatches(findAllMaxMatches);
       Debug timing = Debug.startTimer("Finder.findAll");
-      _results = Finder2.find(_findInput);
+      setResults(Finder2.find(_findInput));
       currentMatchIndex = 0;
+      checkNotFound();
       timing.end();
       return img.getFilename();
     } else {
@@ -339,6 +593,75 @@ public class Finder implements Iterator<Match> {
   }
   //</editor-fold>
 
+  //<editor-fold defaultstate="collapsed" desc="findEach">
+
+  /**
+   * search each of the given patterns in the Finder's image in one go
+   * <br>the image is converted only once and shared, the patterns are matched in parallel
+   * <br>(hasNext() and next() are not affected)
+   *
+   * @param patterns the patterns to search
+   * @return for each pattern (same order) its best match or null if not found/not valid
+   */
+  public List<Match> findEach(List<Pattern> patterns) {
+    List<Match> matches = new ArrayList<>();
+    if (!valid || patterns == null || patterns.isEmpty()) {
+      return matches;
+    }
+    Mat source = _findInput.getBase();
+    if (source == null) {
+      log(-1, "findEach: not possible with a Region");
+      return matches;
+    }
+    List<FindInput2> inputs = new ArrayList<>();
+    boolean needsGray = false;
+    for (Pattern aPtn : patterns) {
+      FindInput2 findInput = null;
+      if (aPtn != null && aPtn.isValid()) {
+        findInput = new FindInput2();
+        findInput.setSource(source);
+        findInput.setTarget(getCompiledTarget(aPtn.getImage(), aPtn.getResize(), aPtn.getMask()));
+        findInput.setMatcher(aPtn.getMatcher());
+        findInput.setSampled(aPtn.isSampled(), aPtn.isSampledGuaranteed());
+        findInput.setGrayFirst(aPtn.isGrayFirst());
+        findInput.setSimilarity(aPtn.getSimilar());
+        findInput.setIsPattern();
+        findInput.setParallel(_findInput.isParallel());
+        findInput.setAttributes();
+        needsGray |= findInput.isGray();
+      }
+      inputs.add(findInput);
+    }
+    Mat sourceGray = null;
+    if (needsGray && source.channels() > 1) {
+      sourceGray = Commons.getNewMat();
+      Imgproc.cvtColor(source, sourceGray, Imgproc.COLOR_BGR2GRAY);
+      for (FindInput2 findInput : inputs) {
+        if (findInput != null) {
+          findInput.setSourceGray(sourceGray);
+        }
+      }
+    }
+    List<FindResult2> results = Finder2.findEach(inputs);
+    for (int n = 0; n < patterns.size(); n++) {
+      Match match = null;
+      FindResult2 result = results.get(n);
+      if (result != null && result.hasNext()) {
+        Pattern aPtn = patterns.get(n);
+        match = makeMatch(result.next(), aPtn, aPtn.getImage());
+      }
+      if (result != null) {
+        result.release();
+      }
+      matches.add(match);
+    }
+    if (sourceGray != null) {
+      sourceGray.release();
+    }
+    return matches;
+  }
+  //</editor-fold>
+
   //<editor-fold desc="findText">
 
   /**
@@ -355,7 +678,7 @@ public class Finder implements Iterator<Match> {
     }
     _findInput.setTargetText(text);
     _findInput.setWhere(where);
-    _results = Finder2.find(_findInput);
+    setResults(Finder2.find(_findInput));
     currentMatchIndex = 0;
     return text;
   }
@@ -443,9 +766,21 @@ public class Finder implements Iterator<Match> {
     if (_results != null && _results.hasNext()) {
       return true;
     }
+    if (_results != null) {
+      // all matches taken: the result of the matching is no longer needed
+      _results.release();
+    }
     return false;
   }
 
+  // the result replaced is released (a repeat with an unchanged screen keeps it)
+  private void setResults(FindResult2 results) {
+    if (_results != null && _results != results) {
+      _results.release();
+    }
+    _results = results;
+  }
+
   /**
    * @return the next match or null
    */
@@ -453,26 +788,30 @@ public class Finder implements Iterator<Match> {
   public Match next() {
     Match match = null;
     if (hasNext()) {
-      match = _results.next();
-      if (!_findInput.isText() && _region != null) {
-        match.x += _region.x;
-        match.y += _region.y;
-      }
-      IScreen parentScreen = null;
-      if (screenFinder && _region != null) {
-        parentScreen = _region.getScreen();
-        match = Match.create(match, parentScreen);
-      }
-      if (_pattern != null) {
-        Location offset = _pattern.getTargetOffset();
-        match.setTargetOffset(offset);
-      }
-      match.setOnScreen(screenFinder);
-      match.setImage(_image);
+      match = makeMatch(_results.next(), _pattern, _image);
     }
     return match;
   }
 
+  private Match makeMatch(Match match, Pattern pattern, Image image) {
+    if (!_findInput.isText() && _region != null) {
+      match.x += _region.x;
+      match.y += _region.y;
+    }
+    IScreen parentScreen = null;
+    if (screenFinder && _region != null) {
+      parentScreen = _region.getScreen();
+      match = Match.create(match, parentScreen);
+    }
+    if (pattern != null) {
+      Location offset = pattern.getTargetOffset();
+      match.setTargetOffset(offset);
+    }
+    match.setOnScreen(screenFinder);
+    match.setImage(image);
+    return match;
+  }
+
   /*
     public Match next() {
       Match match = null;
@@ -503,11 +842,39 @@ public class Finder implements Iterator<Match> {
     destroy();
   }
 
+  /**
+   * the Finder is no longer used: the images of the captures and results are released
+   */
   public void destroy() {
+    setResults(null);
+    if (_findInput != null) {
+      _findInput.releaseBaseGray();
+    }
+    releaseScreenMats();
     _findInput = null;
-    _results = null;
     _pattern = null;
   }
+
+  /**
+   * internal use: the captures are no longer needed (the matches found are still available)
+   */
+  protected void releaseScreenMats() {
+    for (Mat mat : new Mat[]{screenMat, spareMat}) {
+      if (mat != null) {
+        mat.release();
+      }
+    }
+    for (int n = 0; n < pipelineMats.length; n++) {
+      if (pipelineMats[n] != null) {
+        pipelineMats[n].release();
+        pipelineMats[n] = null;
+      }
+    }
+    screenMat = null;
+    spareMat = null;
+    notFoundMat = null;
+    previousMat = null;
+  }
 //</editor-fold>
 
   static final int PIXEL_DIFF_THRESHOLD_DEFAULT = 3;
@@ -581,8 +948,37 @@ public class Finder implements Iterator<Match> {
       return results;
     }
 
+    /**
+     * run the finds for the given inputs on the parallel pool
+     *
+     * @param findInputs the inputs (null entries allowed)
+     * @return the results in the same order (null: not found or no input)
+     */
+    protected static List<FindResult2> findEach(List<FindInput2> findInputs) {
+      List<ForkJoinTask<FindResult2>> tasks = new ArrayList<>();
+      for (FindInput2 findInput : findInputs) {
+        if (findInput == null) {
+          tasks.add(null);
+        } else {
+          tasks.add(getParallelPool().submit(() -> find(findInput)));
+        }
+      }
+      List<FindResult2> results = new ArrayList<>();
+      for (ForkJoinTask<FindResult2> task : tasks) {
+        FindResult2 result = null;
+        if (task != null) {
+          try {
+            result = task.join();
+          } catch (Exception ex) {
+            log.error("findEach: %s", ex.getMessage());
+          }
+        }
+        results.add(result);
+      }
+      return results;
+    }
+
     private final float resizeMinFactor = 1.5f;
-    private final float[] resizeLevels = new float[]{1f, 0.4f};
     private boolean isCheckLastSeen = false;
     private static final double downSimDiff = 0.15;
 
@@ -616,9 +1012,42 @@ public class Finder implements Iterator<Match> {
       }
       if (fInput.isText()) {
         return doFindText();
+      } else if (fInput.getMatcher() != null) {
+        return doFindWithMatcher(fInput.getMatcher());
       } else {
-        return doFindImage();
+        // not for findAll: near-identical matches (score >= 0.99, but not 1.0) would be missing
+        if (Settings.FindExact && fInput.isExact() && !fInput.hasMask() && !fInput.isPlainColor()
+            && !fInput.isFindAll()) {
+          FindResult2 findResult = doFindWithMatcher(exactMatcher);
+          if (findResult != null) {
+            return findResult;
+          }
+        }
+        long begin = new Date().getTime();
+        FindResult2 findResult = doFindImage();
+        String engine = fInput.isPlainColor() && !fInput.hasMask() ? ImageMatcher.PLAIN : ImageMatcher.TEMPLATE;
+        ImageMatcher.getCost(engine).add(new Date().getTime() - begin);
+        return findResult;
+      }
+    }
+
+    private static final ImageMatcher exactMatcher = new ExactMatcher();
+
+    private FindResult2 doFindWithMatcher(ImageMatcher matcher) {
+      long begin = new Date().getTime();
+      Mat where = fInput.getBase();
+      if (fInput.isGray() && where.channels() > 1) {
+        where = fInput.getBaseGray();
+      }
+      List<Match> matches = matcher.find(where, fInput.getTarget(), fInput.getMask(),
+          fInput.getScore(), fInput.isFindAll() ? fInput.getMaxMatches() : 1);
+      long msec = new Date().getTime() - begin;
+      ImageMatcher.getCost(matcher.getName()).add(msec);
+      log.trace("doFindWithMatcher: %s: %d matches %d msec", matcher.getName(), matches.size(), msec);
+      if (matches.isEmpty()) {
+        return null;
       }
+      return new FindResult2(matches, fInput);
     }
 
     private FindResult2 doFindImage() {
@@ -626,92 +1055,173 @@ public class Finder implements Iterator<Match> {
       FindInput2 findInput = fInput;
       log.trace("doFindImage: start %s", findInput);
       mBase = findInput.getBase();
-      boolean success = false;
       long begin_lap = 0;
       long begin_find = new Date().getTime();
       Core.MinMaxLocResult mMinMax = null;
 
-      double rfactor = 0;
-      boolean downSizeFound = false;
-      double downSizeScore = -1;
-      double downSizeWantedScore = 0;
+      if (findInput.isSampled()) {
+        // ************************************************* search with sampled pixels
+        sampledDecisive = false;
+        findResult = doFindSampled(findInput);
+        if (SX.isNotNull(findResult) || (sampledDecisive && !findInput.isSampledGuaranteed())) {
+          log.trace("doFindImage: end (sampled) %d msec", new Date().getTime() - begin_find);
+          return findResult;
+        }
+      }
+      if (Settings.FindDownsized && findInput.shouldSearchDownsized(resizeMinFactor)
+          && isLargeEnoughForDownsized(findInput)) {
+        // ************************************************* search in downsized
+        findResult = doFindDownsized(findInput);
+        if (SX.isNotNull(findResult)) {
+          log.trace("doFindImage: end (downsized) %d msec", new Date().getTime() - begin_find);
+          return findResult;
+        }
+      }
+      if (findInput.isGrayFirst()) {
+        // ************************************** search in grayscale
+        grayFirstDecisive = false;
+        findResult = doFindGrayFirst(findInput);
+        if (SX.isNotNull(findResult) || grayFirstDecisive) {
+          log.trace("doFindImage: end (gray first) %d msec", new Date().getTime() - begin_find);
+          return findResult;
+        }
+      }
+      // ************************************** search in original
+      begin_lap = new Date().getTime();
+      mResult = doFindMatch(findInput.getTarget(), mBase, findInput);
+      mMinMax = Core.minMaxLoc(mResult);
+      if (!isCheckLastSeen) {
+        log.trace("doFindImage: in original: %%%.4f (?%.0f) %d msec %s",
+            mMinMax.maxVal * 100, findInput.getScore() * 100, new Date().getTime() - begin_lap,
+            findInput.hasMask() ? " **withMask" : "");
+      }
+      if (mMinMax.maxVal > findInput.getScore()) {
+        findResult = new FindResult2(mResult, findInput);
+      } else {
+        mResult.release();
+      }
+      log.trace("doFindImage: end %d msec", new Date().getTime() - begin_find);
+      return findResult;
+    }
+
+    private boolean isLargeEnoughForDownsized(FindInput2 findInput) {
+      // the pyramid only pays off, if there are many more positions than a verification needs
+      Mat target = findInput.getTarget();
+      return mBase.cols() >= 2 * target.cols() || mBase.rows() >= 2 * target.rows();
+    }
+
+    /**
+     * search coarse to fine in downsized versions of base and target:
+     * the candidates of a level are verified in small areas of the original (best first),
+     * if none of the first Settings.FindDownsizedCandidates can be verified, the next finer level is tried.
+     * <br>after a verified match the next candidates are verified too, as long as their downsized score
+     * is not more than downSimDiff below the best score in the original (the same deviation
+     * allowed for a candidate at all), so a better match further down the list is not missed.
+     *
+     * @param findInput what and where
+     * @return a result in the original resolution or null (caller should do a full search)
+     */
+    private FindResult2 doFindDownsized(FindInput2 findInput) {
+      Mat target = findInput.getTarget();
+      double imgFactor = findInput.getResizeFactor();
+      double wantedScore = findInput.getScore();
+      double downWantedScore = ((int) ((wantedScore - downSimDiff) * 100)) / 100.0;
       Mat findWhere = Commons.getNewMat();
       Mat findWhat = Commons.getNewMat();
-
-      boolean trueOrFalse = findInput.shouldSearchDownsized(resizeMinFactor);
-      //TODO search downsized?
-      trueOrFalse = false;
-      if (trueOrFalse) {
-        // ************************************************* search in downsized
-        begin_lap = new Date().getTime();
-        double imgFactor = findInput.getResizeFactor();
-        Size sizeBase, sizePattern;
-        mResult = null;
-        for (double factor : resizeLevels) {
-          rfactor = factor * imgFactor;
-          sizeBase = new Size(this.mBase.cols() / rfactor, this.mBase.rows() / rfactor);
-          sizePattern = new Size(findInput.getTarget().cols() / rfactor, findInput.getTarget().rows() / rfactor);
-          Imgproc.resize(this.mBase, findWhere, sizeBase, 0, 0, Imgproc.INTER_AREA);
-          Imgproc.resize(findInput.getTarget(), findWhat, sizePattern, 0, 0, Imgproc.INTER_AREA);
-          mResult = doFindMatch(findWhat, findWhere, findInput);
-          mMinMax = Core.minMaxLoc(mResult);
-          downSizeWantedScore = ((int) ((findInput.getScore() - downSimDiff) * 100)) / 100.0;
-          downSizeScore = mMinMax.maxVal;
-          if (downSizeScore > downSizeWantedScore) {
-            downSizeFound = true;
+      try {
+        for (int level = 0; level < Settings.FindDownsizedLevels; level++) {
+          double rfactor = imgFactor / (1 << level);
+          if (rfactor < resizeMinFactor) {
             break;
           }
-        }
-        log.trace("downSizeFound: %s", downSizeFound);
-        log.trace("doFindImage: down: %%%.2f %d msec", 100 * mMinMax.maxVal, new Date().getTime() - begin_lap);
-      }
-      findWhere = this.mBase;
-      trueOrFalse = !findInput.isFindAll() && downSizeFound;
-      if (trueOrFalse) {
-        // ************************************* check after downsized success
-        if (findWhere.size().equals(findInput.getTarget().size())) {
-          // trust downsized mResult, if images have same size
-          return new FindResult2(mResult, findInput);
-        } else {
-          int maxLocX = (int) (mMinMax.maxLoc.x * rfactor);
-          int maxLocY = (int) (mMinMax.maxLoc.y * rfactor);
-          begin_lap = new Date().getTime();
-          int margin = ((int) findInput.getResizeFactor()) + 1;
-          Rectangle rSub = new Rectangle(Math.max(0, maxLocX - margin), Math.max(0, maxLocY - margin),
-              Math.min(findInput.getTarget().width() + 2 * margin, findWhere.width()),
-              Math.min(findInput.getTarget().height() + 2 * margin, findWhere.height()));
-          Rectangle rWhere = new Rectangle(0, 0, findWhere.cols(), findWhere.rows());
-          Rectangle rSubNew = rWhere.intersection(rSub);
-          Rect rectSub = new Rect(rSubNew.x, rSubNew.y, rSubNew.width, rSubNew.height);
-          mResult = doFindMatch(findInput.getTarget(), findWhere.submat(rectSub), findInput);
-          mMinMax = Core.minMaxLoc(mResult);
-          double maxVal = mMinMax.maxVal;
-          double wantedScore = findInput.getScore();
-          if (maxVal > wantedScore) {
-            findResult = new FindResult2(mResult, findInput, new int[]{rectSub.x, rectSub.y});
+          long begin_lap = new Date().getTime();
+          Size sizeBase = new Size(mBase.cols() / rfactor, mBase.rows() / rfactor);
+          Size sizePattern = new Size(target.cols() / rfactor, target.rows() / rfactor);
+          Imgproc.resize(mBase, findWhere, sizeBase, 0, 0, Imgproc.INTER_AREA);
+          Imgproc.resize(target, findWhat, sizePattern, 0, 0, Imgproc.INTER_AREA);
+          if (findWhat.cols() > findWhere.cols() || findWhat.rows() > findWhere.rows()) {
+            break;
+          }
+          Mat mDown = doFindMatch(findWhat, findWhere, findInput);
+          List<Peak> candidates = getPeaks(mDown, downWantedScore, (int) (findWhat.cols() * 0.8),
+              (int) (findWhat.rows() * 0.8), 0);
+          mDown.release();
+          log.trace("doFindImage: down(%.1f): %d candidates %d msec",
+              rfactor, candidates.size(), new Date().getTime() - begin_lap);
+          if (candidates.isEmpty()) {
+            continue;
           }
+          begin_lap = new Date().getTime();
+          FindResult2 findResult = verifyCandidates(candidates, rfactor, findInput,
+              Math.max(1, Settings.FindDownsizedCandidates), downSimDiff);
+          log.trace("doFindImage: verify after down: %s %d msec",
+              findResult == null ? "failed" : "success", new Date().getTime() - begin_lap);
           if (SX.isNotNull(findResult)) {
-            log.trace("doFindImage after down: %%%.2f(?%%%.2f) %d msec",
-                maxVal * 100, wantedScore * 100, new Date().getTime() - begin_lap);
+            return findResult;
           }
         }
+      } finally {
+        findWhere.release();
+        findWhat.release();
       }
-      // ************************************** search in original
-      if (downSizeScore < 0) {
-        begin_lap = new Date().getTime();
-        mResult = doFindMatch(findInput.getTarget(), findWhere, findInput);
-        mMinMax = Core.minMaxLoc(mResult);
-        if (!isCheckLastSeen) {
-          log.trace("doFindImage: in original: %%%.4f (?%.0f) %d msec %s",
-              mMinMax.maxVal * 100, findInput.getScore() * 100, new Date().getTime() - begin_lap,
-              findInput.hasMask() ? " **withMask" : "");
+      return null;
+    }
+
+    private FindResult2 verifyCandidates(List<Peak> candidates, double rfactor, FindInput2 findInput) {
+      return verifyCandidates(candidates, rfactor, findInput, candidates.size(), Double.MAX_VALUE);
+    }
+
+    /**
+     * verify candidates (best first) in small areas of the original
+     *
+     * @param candidates    ordered by decreasing score
+     * @param rfactor       the candidates' positions are scaled by this factor
+     * @param findInput     what and where
+     * @param maxUnverified without a match after this number of candidates: give up
+     * @param maxDeviation  with a match: stop at the first candidate scoring this much below the best match
+     * @return the best match found or null
+     */
+    private FindResult2 verifyCandidates(List<Peak> candidates, double rfactor, FindInput2 findInput,
+                                         int maxUnverified, double maxDeviation) {
+      Mat target = findInput.getTarget();
+      int margin = ((int) Math.ceil(rfactor)) + 2;
+      Rectangle rWhere = new Rectangle(0, 0, mBase.cols(), mBase.rows());
+      Mat bestResult = null;
+      Rect bestSub = null;
+      double bestScore = findInput.getScore();
+      int verified = 0;
+      for (Peak candidate : candidates) {
+        if (bestResult == null ? verified == maxUnverified : candidate.score + maxDeviation <= bestScore) {
+          break;
+        }
+        verified++;
+        int locX = (int) Math.round(candidate.x * rfactor);
+        int locY = (int) Math.round(candidate.y * rfactor);
+        Rectangle rSub = rWhere.intersection(new Rectangle(locX - margin, locY - margin,
+            target.cols() + 2 * margin, target.rows() + 2 * margin));
+        if (rSub.width < target.cols() || rSub.height < target.rows()) {
+          continue;
         }
-        if (mMinMax.maxVal > findInput.getScore()) {
-          findResult = new FindResult2(mResult, findInput);
+        Rect rectSub = new Rect(rSub.x, rSub.y, rSub.width, rSub.height);
+        Mat sub = mBase.submat(rectSub);
+        Mat mSubResult = doFindMatch(target, sub, findInput);
+        sub.release();
+        double maxVal = Core.minMaxLoc(mSubResult).maxVal;
+        if (maxVal > bestScore) {
+          if (bestResult != null) {
+            bestResult.release();
+          }
+          bestScore = maxVal;
+          bestResult = mSubResult;
+          bestSub = rectSub;
+        } else {
+          mSubResult.release();
         }
       }
-      log.trace("doFindImage: end %d msec", new Date().getTime() - begin_find);
-      return findResult;
+      if (bestResult == null) {
+        return null;
+      }
+      return new FindResult2(bestResult, findInput, new int[]{bestSub.x, bestSub.y});
     }
 
     private Mat doFindMatch(Mat what, Mat where, FindInput2 findInput) {
@@ -720,34 +1230,593 @@ public class Finder implements Iterator<Match> {
         log.error("doFindMatch: image conversion to cvMat did not work");
       } else {
         Mat mWhere = where;
-        if (findInput.isGray()) {
-          Imgproc.cvtColor(where, mWhere, Imgproc.COLOR_BGR2GRAY);
+        boolean converted = false;
+        if (findInput.isGray() && where.channels() > 1) {
+          if (where == findInput.getBase()) {
+            mWhere = findInput.getBaseGray();
+          } else {
+            mWhere = Commons.getNewMat();
+            Imgproc.cvtColor(where, mWhere, Imgproc.COLOR_BGR2GRAY);
+            converted = true;
+          }
         }
         if (!findInput.isPlainColor()) {
           if (findInput.hasMask()) {
-            Mat mask = findInput.getMask();
-            Imgproc.matchTemplate(mWhere, what, mResult, Imgproc.TM_CCORR_NORMED, mask);
+            CompiledTarget.Masked masked = what == findInput.getTarget() ? findInput.getMasked() : null;
+            if (masked != null) {
+              matchMasked(mWhere, masked, mResult, findInput);
+            } else {
+              Mat mask = findInput.getMask();
+              matchTemplate(mWhere, what, mResult, Imgproc.TM_CCORR_NORMED, mask, findInput);
+            }
           } else {
-            Imgproc.matchTemplate(mWhere, what, mResult, Imgproc.TM_CCOEFF_NORMED);
+            matchTemplate(mWhere, what, mResult, Imgproc.TM_CCOEFF_NORMED, null, findInput);
           }
+        } else if (!findInput.hasMask()) {
+          matchPlainColor(mWhere, what, mResult, findInput);
         } else {
           Mat wherePlain = mWhere;
-          Mat whatPlain = what;
           if (findInput.isBlack()) {
+            wherePlain = Commons.getNewMat();
             Core.bitwise_not(mWhere, wherePlain);
-            Core.bitwise_not(what, whatPlain);
           }
-          if (findInput.hasMask()) {
-            Imgproc.matchTemplate(wherePlain, what, mResult, Imgproc.TM_SQDIFF_NORMED, findInput.getMask());
-          } else {
-            Imgproc.matchTemplate(wherePlain, whatPlain, mResult, Imgproc.TM_SQDIFF_NORMED);
+          matchTemplate(wherePlain, what, mResult, Imgproc.TM_SQDIFF_NORMED, findInput.getMask(), findInput);
+          mResult.convertTo(mResult, -1, -1, 1);
+          if (wherePlain != mWhere) {
+            wherePlain.release();
           }
-          Core.subtract(Mat.ones(mResult.size(), CvType.CV_32F), mResult, mResult);
+        }
+        if (converted) {
+          mWhere.release();
         }
       }
       return mResult;
     }
 
+    //<editor-fold desc="scales">
+    // coarse steps of 25%, refined twice around the best (about 12% and 6%)
+    private static final double scaleStep = 1.25;
+    private static final int scaleRefinements = 2;
+
+    /**
+     * search the target in a range of scales:
+     * the last successful scale is tried first (steady state: one search only),
+     * otherwise the range is probed in coarse steps and refined around the best one
+     *
+     * @param inputForScale makes the input for a scale (null: scale not possible)
+     * @param minScale      smallest scale
+     * @param maxScale      largest scale
+     * @param lastScale     the scale found last time (0 = none)
+     * @return the result of the best scale (getScale()) or null if not found
+     */
+    protected static FindResult2 findScaled(DoubleFunction<FindInput2> inputForScale,
+                                            double minScale, double maxScale, double lastScale) {
+      if (lastScale >= minScale && lastScale <= maxScale) {
+        FindInput2 findInput = inputForScale.apply(lastScale);
+        if (findInput != null) {
+          FindResult2 result = find(findInput);
+          if (result != null && result.hasNext()) {
+            log.trace("findScaled: found with last scale %.3f", lastScale);
+            result.setScale(lastScale);
+            return result;
+          }
+        }
+      }
+      List<Double> scales = new ArrayList<>();
+      for (double scale = minScale; scale < maxScale * 0.99; scale *= scaleStep) {
+        scales.add(scale);
+      }
+      scales.add(maxScale);
+      Map<Double, ScaleProbe> probes = new HashMap<>();
+      ScaleProbe best = null;
+      for (double scale : scales) {
+        best = ScaleProbe.better(best, probeScale(inputForScale, scale, probes));
+      }
+      double step = scaleStep;
+      for (int n = 0; n < scaleRefinements && best != null; n++) {
+        if (best.score < best.findInput.getScore() - downSimDiff) {
+          // too far away to get there by refining
+          break;
+        }
+        step = Math.sqrt(step);
+        double center = best.scale;
+        for (double scale : new double[]{center / step, center * step}) {
+          if (scale >= minScale && scale <= maxScale) {
+            best = ScaleProbe.better(best, probeScale(inputForScale, scale, probes));
+          }
+        }
+      }
+      if (best == null) {
+        return null;
+      }
+      log.trace("findScaled: best scale %.3f (%.4f) after %d probes", best.scale, best.score, probes.size());
+      best.findInput.setSimilarity(best.similarity);
+      FindResult2 result = null;
+      if (best.score > best.similarity) {
+        result = best.result;
+        result.setScale(best.scale);
+      }
+      for (ScaleProbe probe : probes.values()) {
+        if (probe != null && probe.result != result) {
+          probe.result.release();
+        }
+      }
+      return result;
+    }
+
+    private static class ScaleProbe {
+      double scale;
+      double score;
+      double similarity;
+      FindInput2 findInput;
+      FindResult2 result;
+
+      static ScaleProbe better(ScaleProbe one, ScaleProbe other) {
+        if (one == null) {
+          return other;
+        }
+        if (other == null) {
+          return one;
+        }
+        return other.score > one.score ? other : one;
+      }
+    }
+
+    // the best score at this scale, whatever the wanted similarity
+    private static ScaleProbe probeScale(DoubleFunction<FindInput2> inputForScale, double scale,
+                                         Map<Double, ScaleProbe> probes) {
+      if (probes.containsKey(scale)) {
+        return probes.get(scale);
+      }
+      ScaleProbe probe = null;
+      FindInput2 findInput = inputForScale.apply(scale);
+      if (findInput != null) {
+        double similarity = findInput.getScore();
+        findInput.setSimilarity(0);
+        FindResult2 result = find(findInput);
+        if (result != null) {
+          probe = new ScaleProbe();
+          probe.scale = scale;
+          probe.score = result.getBestScore();
+          probe.similarity = similarity;
+          probe.findInput = findInput;
+          probe.result = result;
+        }
+        findInput.setSimilarity(similarity);
+      }
+      probes.put(scale, probe);
+      return probe;
+    }
+    //</editor-fold>
+
+    /**
+     * compare two captures of the same size
+     *
+     * @param previous the former capture
+     * @param current  the new capture
+     * @return the bounding rectangle of all changed pixels, null if nothing changed
+     */
+    static Rect getChangedArea(Mat previous, Mat current) {
+      if (!previous.size().equals(current.size()) || previous.type() != current.type()) {
+        return new Rect(0, 0, current.cols(), current.rows());
+      }
+      Mat diff = new Mat();
+      Core.absdiff(previous, current, diff);
+      // as one channel the x of a pixel is spread over channels columns
+      int channels = current.channels();
+      Rect changed = Imgproc.boundingRect(diff.reshape(1));
+      diff.release();
+      if (changed.width == 0 || changed.height == 0) {
+        return null;
+      }
+      int x = changed.x / channels;
+      int width = (changed.x + changed.width - 1) / channels - x + 1;
+      return new Rect(x, changed.y, width, changed.height);
+    }
+
+    //<editor-fold desc="parallel">
+    private static ForkJoinPool parallelPool = null;
+
+    private static synchronized ForkJoinPool getParallelPool() {
+      if (parallelPool == null) {
+        parallelPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+      }
+      return parallelPool;
+    }
+
+    // each band should at least have this many result rows, to not be eaten up by the overlap
+    private static final int minBandRows = 32;
+
+    /**
+     * Imgproc.matchTemplate, optionally split into horizontal bands matched in parallel:
+     * the bands overlap by the template height - 1, so every band delivers
+     * exactly its rows of the result and the merged result equals the one of a single run.
+     */
+    private void matchTemplate(Mat where, Mat what, Mat result, int method, Mat mask, FindInput2 findInput) {
+      int resultRows = where.rows() - what.rows() + 1;
+      int resultCols = where.cols() - what.cols() + 1;
+      int bands = 1;
+      if (findInput.isParallel() && where.rows() * where.cols() >= Settings.FindParallelMinSize
+          && resultRows > 0 && resultCols > 0) {
+        bands = Math.min(getParallelPool().getParallelism(), resultRows / minBandRows);
+      }
+      if (bands < 2) {
+        if (mask == null) {
+          Imgproc.matchTemplate(where, what, result, method);
+        } else {
+          Imgproc.matchTemplate(where, what, result, method, mask);
+        }
+        return;
+      }
+      result.create(resultRows, resultCols, CvType.CV_32F);
+      List<ForkJoinTask<?>> tasks = new ArrayList<>();
+      int bandRows = (resultRows + bands - 1) / bands;
+      for (int start = 0; start < resultRows; start += bandRows) {
+        int bandStart = start;
+        int bandEnd = Math.min(resultRows, start + bandRows);
+        tasks.add(getParallelPool().submit(() -> {
+          Mat band = where.rowRange(bandStart, bandEnd + what.rows() - 1);
+          Mat bandResult = new Mat();
+          if (mask == null) {
+            Imgproc.matchTemplate(band, what, bandResult, method);
+          } else {
+            Imgproc.matchTemplate(band, what, bandResult, method, mask);
+          }
+          Mat resultBand = result.rowRange(bandStart, bandEnd);
+          bandResult.copyTo(resultBand);
+          resultBand.release();
+          bandResult.release();
+          band.release();
+        }));
+      }
+      for (ForkJoinTask<?> task : tasks) {
+        task.join();
+      }
+    }
+    //</editor-fold>
+
+    //<editor-fold desc="plain color">
+    // fewer positions (as when verifying a candidate): matchTemplate itself is faster than the window sums
+    private static final int plainColorMinPositions = 4096;
+
+    /**
+     * for a target of one plain color: the same score as matchTemplate with TM_SQDIFF_NORMED (1 - value),
+     * but the cost does not depend on the target size.
+     * <br>with the target's color t (per channel) and n pixels, at every position
+     * sum((I - t)^2) = sum(I^2) - 2 * sum(t * I) + n * t^2 and sum(T^2) = n * t^2,
+     * where the window sums of I^2 and t * I (channels added up before) are taken with a box filter.
+     * <br>a black target is matched inverted (white), since sum(T^2) would be 0
+     */
+    private void matchPlainColor(Mat where, Mat what, Mat result, FindInput2 findInput) {
+      int resultRows = where.rows() - what.rows() + 1;
+      int resultCols = where.cols() - what.cols() + 1;
+      if (resultRows < 1 || resultCols < 1 || where.channels() != what.channels()) {
+        result.create(Math.max(1, resultRows), Math.max(1, resultCols), CvType.CV_32F);
+        result.setTo(new Scalar(0));
+        return;
+      }
+      List<Mat> temporaries = new ArrayList<>();
+      try {
+        Mat wherePlain = where;
+        if (findInput.isBlack()) {
+          wherePlain = temporary(temporaries);
+          Core.bitwise_not(where, wherePlain);
+        }
+        if (resultRows * resultCols < plainColorMinPositions) {
+          Mat whatPlain = what;
+          if (findInput.isBlack()) {
+            whatPlain = temporary(temporaries);
+            Core.bitwise_not(what, whatPlain);
+          }
+          matchTemplate(wherePlain, whatPlain, result, Imgproc.TM_SQDIFF_NORMED, null, findInput);
+          // 1 - value
+          result.convertTo(result, -1, -1, 1);
+          return;
+        }
+        Scalar color = Core.mean(what);
+        if (findInput.isBlack()) {
+          for (int n = 0; n < 4; n++) {
+            color.val[n] = 255 - color.val[n];
+          }
+        }
+        int channels = where.channels();
+        double colorSquare = 0;
+        Mat colorWeights = temporary(temporaries);
+        colorWeights.create(1, channels, CvType.CV_32F);
+        for (int n = 0; n < channels; n++) {
+          colorWeights.put(0, n, color.val[n]);
+          colorSquare += color.val[n] * color.val[n];
+        }
+        double targetSquareSum = colorSquare * what.total();
+        // t * I and I^2, the channels added up
+        Mat whereF = temporary(temporaries);
+        wherePlain.convertTo(whereF, CvType.CV_32F);
+        Mat weighted = temporary(temporaries);
+        Mat square = temporary(temporaries);
+        if (channels > 1) {
+          Core.transform(whereF, weighted, colorWeights);
+          Core.multiply(whereF, whereF, whereF);
+          Mat ones = temporary(temporaries);
+          ones.create(1, channels, CvType.CV_32F);
+          ones.setTo(new Scalar(1));
+          Core.transform(whereF, square, ones);
+        } else {
+          Core.multiply(whereF, new Scalar(color.val[0]), weighted);
+          Core.multiply(whereF, whereF, square);
+        }
+        whereF.release();
+        // window sums (top left at every position)
+        Size window = new Size(what.cols(), what.rows());
+        Point topLeft = new Point(0, 0);
+        Imgproc.boxFilter(weighted, weighted, -1, window, topLeft, false, Core.BORDER_CONSTANT);
+        Imgproc.boxFilter(square, square, -1, window, topLeft, false, Core.BORDER_CONSTANT);
+        Mat weightedSum = weighted.submat(0, resultRows, 0, resultCols);
+        Mat squareSum = square.submat(0, resultRows, 0, resultCols);
+        temporaries.add(weightedSum);
+        temporaries.add(squareSum);
+        // sum((I - t)^2), not below 0 (rounding)
+        Core.scaleAdd(weightedSum, -2, squareSum, result);
+        Core.add(result, new Scalar(targetSquareSum), result);
+        Core.max(result, new Scalar(0), result);
+        // as OpenCV: a value not below the denominator (as with a black area) counts as 1 (no match)
+        Core.multiply(squareSum, new Scalar(targetSquareSum), squareSum);
+        Core.sqrt(squareSum, squareSum);
+        Core.max(squareSum, new Scalar(Float.MIN_NORMAL), squareSum);
+        Core.divide(result, squareSum, result);
+        Core.min(result, new Scalar(1), result);
+        result.convertTo(result, -1, -1, 1);
+      } finally {
+        for (Mat mat : temporaries) {
+          mat.release();
+        }
+      }
+    }
+
+    private static Mat temporary(List<Mat> temporaries) {
+      Mat mat = Commons.getNewMat();
+      temporaries.add(mat);
+      return mat;
+    }
+    //</editor-fold>
+
+    //<editor-fold desc="gray first">
+    // max number of the best gray candidates verified in color
+    private static final int grayFirstCandidates = 5;
+    // a gray candidate may score this much below the similarity (the gray score might be lower than in color)
+    private static final double grayFirstMargin = 0.05;
+
+    // false: not all gray candidates could be verified in color (a search in color is needed)
+    private boolean grayFirstDecisive = false;
+
+    /**
+     * match in grayscale (about a third of the work in color), the gray image of the base is made once
+     * and shared by all searches in the same base, the best candidates are then verified in color
+     * (a small area around each with the normal matching)
+     * <br>only used for targets keeping enough contrast in gray (see CompiledTarget.isGrayContrasted),
+     * otherwise no gray candidate would not mean, that the target is not there
+     *
+     * @param findInput what and where
+     * @return the verified result or null
+     */
+    private FindResult2 doFindGrayFirst(FindInput2 findInput) {
+      long begin_lap = new Date().getTime();
+      Mat targetGray = findInput.getTargetGray();
+      Mat grayResult = Commons.getNewMat();
+      matchTemplate(findInput.getBaseGray(), targetGray, grayResult, Imgproc.TM_CCOEFF_NORMED, null, findInput);
+      List<Peak> candidates = getPeaks(grayResult, findInput.getScore() - grayFirstMargin,
+          (int) (targetGray.cols() * 0.8), (int) (targetGray.rows() * 0.8), grayFirstCandidates);
+      grayResult.release();
+      log.trace("doFindImage: gray: %d candidates %d msec", candidates.size(), new Date().getTime() - begin_lap);
+      if (candidates.isEmpty()) {
+        grayFirstDecisive = true;
+        return null;
+      }
+      begin_lap = new Date().getTime();
+      FindResult2 findResult = verifyCandidates(candidates, 1, findInput);
+      log.trace("doFindImage: verify in color: %s %d msec",
+          findResult == null ? "rejected" : "success", new Date().getTime() - begin_lap);
+      // all gray candidates rejected: only decisive, if there were no more
+      grayFirstDecisive = candidates.size() < grayFirstCandidates;
+      return findResult;
+    }
+    //</editor-fold>
+
+    //<editor-fold desc="masked">
+    /**
+     * the same as matchTemplate with TM_CCORR_NORMED and the target's mask, but without the slow masked matching:
+     * <br>numerator: unmasked correlation with the target, whose transparent pixels are zero
+     * <br>denominator: the sum of squares of the image under the opaque pixels at every position,
+     * made from an integral image, if the opaque area consists of a few rectangles,
+     * otherwise as unmasked correlation of the squares with the mask
+     */
+    private void matchMasked(Mat where, CompiledTarget.Masked masked, Mat result, FindInput2 findInput) {
+      matchTemplate(where, masked.target, result, Imgproc.TM_CCORR, null, findInput);
+      int resultRows = result.rows();
+      int resultCols = result.cols();
+      // squares of the pixels, the channels added up
+      Mat square = Commons.getNewMat();
+      where.convertTo(square, CvType.CV_32F);
+      Core.multiply(square, square, square);
+      if (square.channels() > 1) {
+        Core.transform(square, square, new Mat(1, square.channels(), CvType.CV_32F, new Scalar(1)));
+      }
+      Mat squareSum = Commons.getNewMat();
+      if (masked.rects != null) {
+        Mat integral = Commons.getNewMat();
+        Imgproc.integral(square, integral, CvType.CV_64F);
+        Mat sum = Mat.zeros(resultRows, resultCols, CvType.CV_64F);
+        for (Rect rect : masked.rects) {
+          int top = rect.y;
+          int bottom = rect.y + rect.height;
+          int left = rect.x;
+          int right = rect.x + rect.width;
+          addCorner(sum, integral, bottom, right, 1);
+          addCorner(sum, integral, top, right, -1);
+          addCorner(sum, integral, bottom, left, -1);
+          addCorner(sum, integral, top, left, 1);
+        }
+        sum.convertTo(squareSum, CvType.CV_32F);
+        sum.release();
+        integral.release();
+      } else {
+        matchTemplate(square, masked.mask, squareSum, Imgproc.TM_CCORR, null, findInput);
+      }
+      square.release();
+      Core.multiply(squareSum, new Scalar(masked.targetSquareSum), squareSum);
+      Core.sqrt(squareSum, squareSum);
+      Core.divide(result, squareSum, result);
+      squareSum.release();
+      // nothing but black under the opaque pixels (0 / 0)
+      Core.patchNaNs(result, 0);
+    }
+
+    // sum += sign * the integral at (row, col) offset by every result position
+    private static void addCorner(Mat sum, Mat integral, int row, int col, double sign) {
+      Mat corner = integral.submat(row, row + sum.rows(), col, col + sum.cols());
+      Core.scaleAdd(corner, sign, sum, sum);
+      corner.release();
+    }
+    //</editor-fold>
+
+    //<editor-fold desc="sampled">
+    // max number of candidates from the sampled pixels to be verified
+    private static final int sampledCandidates = 5;
+    // more positions passing the sampled pixels: the samples are not specific enough
+    private static final int sampledMaxPassed = 20000;
+    // the samples' correlation may be this much lower than the wanted score
+    private static final double sampledMargin = 0.15;
+    // a lower correlation of the samples is passed by too many positions to be useful
+    private static final double sampledMinCorrelation = 0.5;
+
+    // false: the sampled search did not run to the end (a normal search is needed anyway)
+    private boolean sampledDecisive = false;
+
+    /**
+     * stage 1: at every position only the target's sample pixels (see CompiledTarget.getSamples)
+     * are compared: the correlation coefficient of the sampled gray values with the target's ones,
+     * which like TM_CCOEFF_NORMED does not change with brightness and contrast.
+     * <br>stage 2: the best positions passing stage 1 are verified with the normal matching.
+     *
+     * @param findInput what and where
+     * @return the verified result or null
+     */
+    private FindResult2 doFindSampled(FindInput2 findInput) {
+      CompiledTarget.Samples samples = findInput.getSamples();
+      if (samples == null) {
+        return null;
+      }
+      long begin_lap = new Date().getTime();
+      Mat target = findInput.getTarget();
+      Mat gray = mBase.channels() > 1 ? findInput.getBaseGray() : mBase;
+      int width = gray.cols();
+      int positionsX = width - target.cols() + 1;
+      int positionsY = gray.rows() - target.rows() + 1;
+      if (positionsX < 1 || positionsY < 1) {
+        return null;
+      }
+      byte[] pixels = new byte[(int) gray.total()];
+      if (gray.isContinuous()) {
+        gray.get(0, 0, pixels);
+      } else {
+        Mat continuous = gray.clone();
+        continuous.get(0, 0, pixels);
+        continuous.release();
+      }
+      int count = samples.value.length;
+      int[] offsets = new int[count];
+      long targetSum = 0;
+      long targetSquareSum = 0;
+      for (int n = 0; n < count; n++) {
+        offsets[n] = samples.y[n] * width + samples.x[n];
+        targetSum += samples.value[n];
+        targetSquareSum += samples.value[n] * samples.value[n];
+      }
+      // count * variance of the target's samples (count * count times)
+      double targetVariance = (double) count * targetSquareSum - (double) targetSum * targetSum;
+      // the samples are only a part of the target: their correlation may be lower than the whole one's
+      double minCorrelation = Math.max(findInput.getScore() - sampledMargin, sampledMinCorrelation);
+      double minSquare = minCorrelation * minCorrelation;
+      int[] passed = new int[64];
+      float[] passedScore = new float[64];
+      int passedCount = 0;
+      for (int y = 0; y < positionsY; y++) {
+        for (int x = 0; x < positionsX; x++) {
+          int start = y * width + x;
+          int sum = 0;
+          int squareSum = 0;
+          int productSum = 0;
+          for (int n = 0; n < count; n++) {
+            int value = pixels[start + offsets[n]] & 0xff;
+            sum += value;
+            squareSum += value * value;
+            productSum += value * samples.value[n];
+          }
+          double covariance = (double) count * productSum - (double) sum * targetSum;
+          if (covariance <= 0) {
+            continue;
+          }
+          double variance = ((double) count * squareSum - (double) sum * sum) * targetVariance;
+          if (covariance * covariance < minSquare * variance) {
+            continue;
+          }
+          if (passedCount == sampledMaxPassed) {
+            log.trace("doFindImage: sampled: more than %d positions pass", sampledMaxPassed);
+            return null;
+          }
+          if (passedCount == passed.length) {
+            passed = Arrays.copyOf(passed, passedCount * 2);
+            passedScore = Arrays.copyOf(passedScore, passedCount * 2);
+          }
+          passed[passedCount] = start;
+          passedScore[passedCount++] = (float) (covariance / Math.sqrt(variance));
+        }
+      }
+      sampledDecisive = true;
+      List<Peak> candidates = getSampledCandidates(passed, passedScore, passedCount, width, target);
+      log.trace("doFindImage: sampled: %d samples, %d passed, %d candidates %d msec",
+          count, passedCount, candidates.size(), new Date().getTime() - begin_lap);
+      if (candidates.isEmpty()) {
+        return null;
+      }
+      begin_lap = new Date().getTime();
+      FindResult2 findResult = verifyCandidates(candidates, 1, findInput);
+      log.trace("doFindImage: verify after sampled: %s %d msec",
+          findResult == null ? "failed" : "success", new Date().getTime() - begin_lap);
+      return findResult;
+    }
+
+    // the best positions (highest correlation), a position is dropped, if it is near a better one
+    private static List<Peak> getSampledCandidates(int[] passed, float[] passedScore, int passedCount,
+                                                   int width, Mat target) {
+      Integer[] order = new Integer[passedCount];
+      for (int n = 0; n < passedCount; n++) {
+        order[n] = n;
+      }
+      Arrays.sort(order, (a, b) -> Float.compare(passedScore[b], passedScore[a]));
+      int marginX = (int) (target.cols() * 0.8);
+      int marginY = (int) (target.rows() * 0.8);
+      List<Peak> candidates = new ArrayList<>();
+      for (int n : order) {
+        int x = passed[n] % width;
+        int y = passed[n] / width;
+        boolean near = false;
+        for (Peak candidate : candidates) {
+          if (Math.abs(candidate.x - x) < marginX && Math.abs(candidate.y - y) < marginY) {
+            near = true;
+            break;
+          }
+        }
+        if (!near) {
+          candidates.add(new Peak(x, y, passedScore[n]));
+          if (candidates.size() == sampledCandidates) {
+            break;
+          }
+        }
+      }
+      return candidates;
+    }
+    //</editor-fold>
+
     private FindResult2 doFindText() {
       FindResult2 findResult = null;
       Region where = fInput.getWhere();
@@ -871,6 +1940,82 @@ public class Finder implements Iterator<Match> {
     }
     //</editor-fold>
 
+    //<editor-fold desc="peaks">
+    static class Peak {
+      final int x;
+      final int y;
+      final double score;
+
+      Peak(int x, int y, double score) {
+        this.x = x;
+        this.y = y;
+        this.score = score;
+      }
+    }
+
+    /**
+     * extract the match candidates from a matchTemplate result in one pass:
+     * local maxima (dilate and compare) above minScore, sorted by score (best first),
+     * a candidate is dropped, if it is within the margins of a better one
+     *
+     * @param result   the result of a matchTemplate
+     * @param minScore only candidates with a higher score
+     * @param marginX  min horizontal distance between candidates
+     * @param marginY  min vertical distance between candidates
+     * @param maxPeaks max number of candidates returned (0 = all)
+     * @return the candidates (might be empty)
+     */
+    static List<Peak> getPeaks(Mat result, double minScore, int marginX, int marginY, int maxPeaks) {
+      List<Peak> peaks = new ArrayList<>();
+      marginX = Math.max(1, marginX);
+      marginY = Math.max(1, marginY);
+      Mat kernel = Imgproc.getStructuringElement(Imgproc.MORPH_RECT,
+          new Size(2 * Math.max(1, marginX / 2) + 1, 2 * Math.max(1, marginY / 2) + 1));
+      Mat mDilated = Commons.getNewMat();
+      Imgproc.dilate(result, mDilated, kernel);
+      Mat mPeaks = Commons.getNewMat();
+      Core.compare(result, mDilated, mPeaks, Core.CMP_GE);
+      Mat mAbove = Commons.getNewMat();
+      Core.compare(result, new Scalar(minScore), mAbove, Core.CMP_GT);
+      Core.bitwise_and(mPeaks, mAbove, mPeaks);
+      MatOfPoint mPoints = new MatOfPoint();
+      Core.findNonZero(mPeaks, mPoints);
+      Point[] points = mPoints.toArray();
+      for (Mat mat : new Mat[]{kernel, mDilated, mPeaks, mAbove, mPoints}) {
+        mat.release();
+      }
+      if (points.length == 0) {
+        return peaks;
+      }
+      List<Peak> candidates = new ArrayList<>();
+      float[] score = new float[1];
+      for (Point point : points) {
+        result.get((int) point.y, (int) point.x, score);
+        candidates.add(new Peak((int) point.x, (int) point.y, score[0]));
+      }
+      // stable: equal scores stay in row order like with minMaxLoc
+      candidates.sort((p1, p2) -> Double.compare(p2.score, p1.score));
+      for (Peak candidate : candidates) {
+        boolean suppressed = false;
+        for (Peak peak : peaks) {
+          int dx = candidate.x - peak.x;
+          int dy = candidate.y - peak.y;
+          if (dx >= -marginX && dx < marginX && dy >= -marginY && dy < marginY) {
+            suppressed = true;
+            break;
+          }
+        }
+        if (!suppressed) {
+          peaks.add(candidate);
+          if (maxPeaks > 0 && peaks.size() >= maxPeaks) {
+            break;
+          }
+        }
+      }
+      return peaks;
+    }
+    //</editor-fold>
+
     //<editor-fold desc="detect changes">
     private static int toGray = Imgproc.COLOR_BGR2GRAY;
     private static int toColor = Imgproc.COLOR_GRAY2BGR;
@@ -1009,6 +2154,346 @@ public class Finder implements Iterator<Match> {
     //</editor-fold>
   }
 
+  /**
+   * a target image prepared for searching (BGR/gray cvMat, mask and statistics)
+   * <br>is cached per image/pattern and must not be modified after creation
+   */
+  private static class CompiledTarget {
+
+    private BufferedImage source = null;
+    private Mat sourceMask = null;
+    private ImageCallback sourceCallback = null;
+
+    private Mat target = null;
+    private Mat targetBGR = null;
+    private Mat mask = null;
+
+    private boolean plainColor = false;
+    private boolean blackColor = false;
+    private boolean whiteColor = false;
+    private boolean grayColor = false;
+    private double resizeFactor = 1;
+    private int[] meanColor = null;
+    private double targetStdDev = -1;
+    private double targetMean = -1;
+
+    private static final int resizeMinDownSample = 12;
+    private static final double minThreshhold = 1.0E-5;
+
+    private CompiledTarget() {
+    }
+
+    // a sampled search needs at least this target size (width x height)
+    private static final int sampledMinSize = 10000;
+    // the target is divided into sampledGrid x sampledGrid cells, each giving its most varying pixel
+    private static final int sampledGrid = 8;
+    // min local variance of a sample pixel (a cell without contrast gives none)
+    private static final double sampledMinVariance = 25;
+    // min number of samples for a sampled search
+    private static final int sampledMinSamples = 8;
+
+    /**
+     * the sample pixels of a target for a sampled search (gray value at x, y),
+     * ordered by decreasing local variance (the most discriminating first)
+     */
+    static class Samples {
+      final int[] x;
+      final int[] y;
+      final int[] value;
+
+      private Samples(int count) {
+        x = new int[count];
+        y = new int[count];
+        value = new int[count];
+      }
+    }
+
+    private Samples samples = null;
+    private boolean samplesMade = false;
+
+    /**
+     * made on first use and kept with the compiled target
+     *
+     * @return the sample pixels or null (target too small or without enough contrast)
+     */
+    private synchronized Samples getSamples() {
+      if (!samplesMade) {
+        samplesMade = true;
+        samples = makeSamples();
+      }
+      return samples;
+    }
+
+    private Mat targetGray = null;
+
+    /**
+     * @return the target in grayscale (made on first use)
+     */
+    private synchronized Mat getTargetGray() {
+      if (targetGray == null) {
+        if (targetBGR.channels() > 1) {
+          targetGray = new Mat();
+          Imgproc.cvtColor(targetBGR, targetGray, Imgproc.COLOR_BGR2GRAY);
+        } else {
+          targetGray = targetBGR;
+        }
+      }
+      return targetGray;
+    }
+
+    // the gray target must keep at least this part of the mean variance of the color channels
+    private static final double grayMinVarianceShare = 0.5;
+    // min standard deviation of the gray target
+    private static final double grayMinDeviation = 8;
+
+    private Boolean grayContrasted = null;
+
+    /**
+     * a target, whose colors differ more than their brightness (e.g. red on green),
+     * looks flat in gray: no good gray match would not mean, that it is not there in color
+     *
+     * @return true if the gray target keeps enough of the contrast in color (made on first use)
+     */
+    private synchronized boolean isGrayContrasted() {
+      if (grayContrasted == null) {
+        MatOfDouble mean = new MatOfDouble();
+        MatOfDouble deviation = new MatOfDouble();
+        Core.meanStdDev(targetBGR, mean, deviation);
+        double colorVariance = 0;
+        for (double channel : deviation.toArray()) {
+          colorVariance += channel * channel;
+        }
+        colorVariance /= targetBGR.channels();
+        Core.meanStdDev(getTargetGray(), mean, deviation);
+        double grayDeviation = deviation.toArray()[0];
+        grayContrasted = grayDeviation >= grayMinDeviation
+            && grayDeviation * grayDeviation >= grayMinVarianceShare * colorVariance;
+      }
+      return grayContrasted;
+    }
+
+    // more rectangles of opaque pixels: the sum of squares is made by correlation with the mask
+    private static final int maskedMaxRects = 16;
+
+    /**
+     * a masked target prepared for Finder2.matchMasked
+     */
+    static class Masked {
+      // the target with the transparent pixels set to zero
+      Mat target;
+      // the mask as 0/1 float (one channel)
+      Mat mask;
+      double targetSquareSum;
+      // the opaque pixels as rectangles (null: too many)
+      List<Rect> rects;
+    }
+
+    private Masked masked = null;
+    private boolean maskedMade = false;
+
+    /**
+     * made on first use and kept with the compiled target
+     *
+     * @return the prepared masked target or null (no mask or a mask with more than one opaque value)
+     */
+    private synchronized Masked getMasked() {
+      if (!maskedMade) {
+        maskedMade = true;
+        masked = makeMasked();
+      }
+      return masked;
+    }
+
+    private Masked makeMasked() {
+      if (mask == null || mask.empty() || mask.depth() != CvType.CV_8U
+          || mask.cols() != targetBGR.cols() || mask.rows() != targetBGR.rows()) {
+        return null;
+      }
+      Mat mask1 = mask;
+      if (mask.channels() > 1) {
+        mask1 = new Mat();
+        Core.extractChannel(mask, mask1, 0);
+      }
+      // a mask of 0 and one other value gives the same scores as a 0/1 mask
+      double maxValue = Core.minMaxLoc(mask1).maxVal;
+      Mat opaque = new Mat();
+      Core.compare(mask1, new Scalar(0), opaque, Core.CMP_GT);
+      Mat opaqueMax = new Mat();
+      Core.compare(mask1, new Scalar(maxValue), opaqueMax, Core.CMP_EQ);
+      if (maxValue == 0 || Core.countNonZero(opaque) != Core.countNonZero(opaqueMax)) {
+        return null;
+      }
+      Masked masked = new Masked();
+      masked.target = Mat.zeros(targetBGR.size(), targetBGR.type());
+      targetBGR.copyTo(masked.target, opaque);
+      double norm = Core.norm(masked.target, Core.NORM_L2);
+      masked.targetSquareSum = norm * norm;
+      masked.mask = new Mat();
+      opaque.convertTo(masked.mask, CvType.CV_32F, 1.0 / 255);
+      masked.rects = getOpaqueRects(opaque);
+      return masked;
+    }
+
+    // the runs of opaque pixels of a row, rows with the same runs are merged into rectangles
+    private static List<Rect> getOpaqueRects(Mat opaque) {
+      int width = opaque.cols();
+      byte[] row = new byte[width];
+      List<Rect> rects = new ArrayList<>();
+      List<Rect> open = new ArrayList<>();
+      List<int[]> lastRuns = new ArrayList<>();
+      for (int y = 0; y < opaque.rows(); y++) {
+        opaque.get(y, 0, row);
+        List<int[]> runs = new ArrayList<>();
+        for (int x = 0; x < width; x++) {
+          if (row[x] != 0 && (x == 0 || row[x - 1] == 0)) {
+            runs.add(new int[]{x, x + 1});
+          } else if (row[x] != 0) {
+            runs.get(runs.size() - 1)[1] = x + 1;
+          }
+        }
+        boolean same = runs.size() == lastRuns.size();
+        for (int n = 0; same && n < runs.size(); n++) {
+          same = Arrays.equals(runs.get(n), lastRuns.get(n));
+        }
+        if (same) {
+          for (Rect rect : open) {
+            rect.height++;
+          }
+        } else {
+          rects.addAll(open);
+          open.clear();
+          for (int[] run : runs) {
+            open.add(new Rect(run[0], y, run[1] - run[0], 1));
+          }
+          if (rects.size() + open.size() > maskedMaxRects) {
+            return null;
+          }
+        }
+        lastRuns = runs;
+      }
+      rects.addAll(open);
+      return rects;
+    }
+
+    private Samples makeSamples() {
+      if (targetBGR.total() < sampledMinSize) {
+        return null;
+      }
+      Mat gray = new Mat();
+      if (targetBGR.channels() > 1) {
+        Imgproc.cvtColor(targetBGR, gray, Imgproc.COLOR_BGR2GRAY);
+      } else {
+        targetBGR.copyTo(gray);
+      }
+      // local variance in a 3 x 3 neighbourhood: E(x*x) - E(x)*E(x)
+      Mat gray32 = new Mat();
+      gray.convertTo(gray32, CvType.CV_32F);
+      Mat mean = new Mat();
+      Mat meanSquare = new Mat();
+      Imgproc.blur(gray32, mean, new Size(3, 3));
+      Imgproc.blur(gray32.mul(gray32), meanSquare, new Size(3, 3));
+      Mat variance = new Mat();
+      Core.subtract(meanSquare, mean.mul(mean), variance);
+      List<double[]> found = new ArrayList<>();
+      int cellW = gray.cols() / sampledGrid;
+      int cellH = gray.rows() / sampledGrid;
+      for (int cellY = 0; cellY < sampledGrid; cellY++) {
+        for (int cellX = 0; cellX < sampledGrid; cellX++) {
+          Rect cell = new Rect(cellX * cellW, cellY * cellH, cellW, cellH);
+          Core.MinMaxLocResult maxVariance = Core.minMaxLoc(variance.submat(cell));
+          if (maxVariance.maxVal < sampledMinVariance) {
+            continue;
+          }
+          int x = cell.x + (int) maxVariance.maxLoc.x;
+          int y = cell.y + (int) maxVariance.maxLoc.y;
+          found.add(new double[]{maxVariance.maxVal, x, y});
+        }
+      }
+      if (found.size() < sampledMinSamples) {
+        return null;
+      }
+      found.sort((a, b) -> Double.compare(b[0], a[0]));
+      Samples samples = new Samples(found.size());
+      for (int n = 0; n < found.size(); n++) {
+        samples.x[n] = (int) found.get(n)[1];
+        samples.y[n] = (int) found.get(n)[2];
+        samples.value[n] = (int) gray.get(samples.y[n], samples.x[n])[0];
+      }
+      return samples;
+    }
+
+    private void setMadeFrom(BufferedImage source, Mat mask, ImageCallback callback) {
+      sourceMask = mask;
+      sourceCallback = callback;
+      this.source = source;
+    }
+
+    private boolean isMadeFrom(BufferedImage source, Mat mask, ImageCallback callback) {
+      return this.source == source && sourceMask == mask && sourceCallback == callback;
+    }
+
+    private static CompiledTarget compile(Mat target, Mat mask) {
+      CompiledTarget compiled = new CompiledTarget();
+      compiled.target = target;
+      List<Mat> mats = Finder2.extractMask(target, true);
+      compiled.targetBGR = mats.get(0);
+      if (mask == null || mask.empty()) {
+        compiled.mask = mats.get(1);
+      } else {
+        compiled.mask = mask;
+      }
+      Mat targetBGR = compiled.targetBGR;
+      if (targetBGR.channels() == 1) {
+        compiled.grayColor = true;
+      }
+      compiled.resizeFactor = Math.min(((double) targetBGR.width()) / resizeMinDownSample,
+          ((double) targetBGR.height()) / resizeMinDownSample);
+      compiled.resizeFactor = Math.max(1.0, compiled.resizeFactor);
+      MatOfDouble pMean = new MatOfDouble();
+      MatOfDouble pStdDev = new MatOfDouble();
+
+      if (compiled.mask.empty()) {
+        Core.meanStdDev(targetBGR, pMean, pStdDev);
+      } else {
+        List<Mat> maskMats = new ArrayList<>();
+        Core.split(compiled.mask, maskMats);
+        Core.meanStdDev(targetBGR, pMean, pStdDev, maskMats.get(0));
+      }
+      double sum = 0.0;
+      double[] arr = pStdDev.toArray();
+      for (int i = 0; i < arr.length; i++) {
+        sum += arr[i];
+      }
+      compiled.targetStdDev = sum;
+      if (sum < minThreshhold) {
+        compiled.plainColor = true;
+      }
+      sum = 0.0;
+      arr = pMean.toArray();
+      compiled.meanColor = new int[arr.length];
+      for (int i = 0; i < arr.length; i++) {
+        compiled.meanColor[i] = (int) arr[i];
+        sum += arr[i];
+      }
+      compiled.targetMean = sum;
+      if (sum < minThreshhold && compiled.plainColor) {
+        compiled.blackColor = true;
+      }
+      if (compiled.meanColor.length > 2) {
+        compiled.whiteColor = isColorEqual(compiled.meanColor, Color.WHITE);
+      }
+      return compiled;
+    }
+
+    private static boolean isColorEqual(int[] meanColor, Color otherMeanColor) {
+      Color col = new Color(meanColor[2], meanColor[1], meanColor[0]);
+      int r = (col.getRed() - otherMeanColor.getRed()) * (col.getRed() - otherMeanColor.getRed());
+      int g = (col.getGreen() - otherMeanColor.getGreen()) * (col.getGreen() - otherMeanColor.getGreen());
+      int b = (col.getBlue() - otherMeanColor.getBlue()) * (col.getBlue() - otherMeanColor.getBlue());
+      return Math.sqrt(r + g + b) < minThreshhold;
+    }
+  }
+
   private static class FindInput2 {
 
     static {
@@ -1064,6 +2549,68 @@ public class Finder implements Iterator<Match> {
 
     public void setTarget(Mat target) {
       this.target = target;
+      compiled = null;
+    }
+
+    private CompiledTarget compiled = null;
+
+    public void setTarget(CompiledTarget compiled) {
+      this.compiled = compiled;
+      target = compiled.target;
+      mask = compiled.mask;
+      matcher = null;
+      sampled = false;
+      grayFirst = false;
+    }
+
+    private ImageMatcher matcher = null;
+
+    public void setMatcher(ImageMatcher matcher) {
+      this.matcher = matcher;
+    }
+
+    public ImageMatcher getMatcher() {
+      return matcher;
+    }
+
+    private boolean sampled = false;
+    private boolean sampledGuaranteed = true;
+
+    public void setSampled(boolean sampled, boolean guaranteed) {
+      this.sampled = sampled;
+      sampledGuaranteed = guaranteed;
+    }
+
+    public boolean isSampled() {
+      return sampled && compiled != null && !hasMask() && !isFindAll() && !isPlainColor();
+    }
+
+    public boolean isSampledGuaranteed() {
+      return sampledGuaranteed;
+    }
+
+    private boolean grayFirst = false;
+
+    public void setGrayFirst(boolean grayFirst) {
+      this.grayFirst = grayFirst;
+    }
+
+    public boolean isGrayFirst() {
+      return grayFirst && compiled != null && source != null && source.channels() > 1
+          && !isGray() && !hasMask() && !isFindAll() && !isPlainColor() && compiled.isGrayContrasted();
+    }
+
+    private Mat getTargetGray() {
+      return compiled.getTargetGray();
+    }
+
+    private CompiledTarget.Samples getSamples() {
+      return compiled == null ? null : compiled.getSamples();
+    }
+
+    // only for the mask made with the compiled target
+    private CompiledTarget.Masked getMasked() {
+      return compiled == null || mask != compiled.mask ? null : compiled.getMasked();
     }
 
     public Mat getTarget() {
@@ -1139,6 +2686,36 @@ public class Finder implements Iterator<Match> {
 
     public void setSource(Mat source) {
       this.source = source;
+      releaseBaseGray();
+    }
+
+    private Mat sourceGray = null;
+    // false: shared with other inputs (see setSourceGray), released by its maker
+    private boolean sourceGrayOwned = false;
+
+    /**
+     * @param sourceGray the source already converted to gray (shared, must not be modified)
+     */
+    public void setSourceGray(Mat sourceGray) {
+      releaseBaseGray();
+      this.sourceGray = sourceGray;
+    }
+
+    public Mat getBaseGray() {
+      if (sourceGray == null) {
+        sourceGray = Commons.getNewMat();
+        sourceGrayOwned = true;
+        Imgproc.cvtColor(source, sourceGray, Imgproc.COLOR_BGR2GRAY);
+      }
+      return sourceGray;
+    }
+
+    void releaseBaseGray() {
+      if (sourceGray != null && sourceGrayOwned) {
+        sourceGray.release();
+      }
+      sourceGray = null;
+      sourceGrayOwned = false;
     }
 
     public Mat getBase() {
@@ -1168,7 +2745,8 @@ public class Finder implements Iterator<Match> {
     }
 
     public boolean shouldSearchDownsized(float resizeMinFactor) {
-      return !hasMask() && !isExact() && !isFindAll() && getResizeFactor() > resizeMinFactor;
+      return !hasMask() && !isExact() && !isFindAll() && !isPlainColor()
+          && getResizeFactor() > resizeMinFactor;
     }
 
     private double scoreMaxDiff = 0.05;
@@ -1185,6 +2763,26 @@ public class Finder implements Iterator<Match> {
       findAll = true;
     }
 
+    private Boolean parallel = null;
+
+    public void setParallel(boolean parallel) {
+      this.parallel = parallel;
+    }
+
+    public boolean isParallel() {
+      return parallel == null ? Settings.FindParallel : parallel;
+    }
+
+    private int maxMatches = 0;
+
+    public void setMaxMatches(int maxMatches) {
+      this.maxMatches = maxMatches;
+    }
+
+    public int getMaxMatches() {
+      return maxMatches;
+    }
+
     protected boolean plainColor = false;
     protected boolean blackColor = false;
     protected boolean whiteColor = false;
@@ -1212,20 +2810,14 @@ public class Finder implements Iterator<Match> {
 
     protected double resizeFactor;
 
-    private final int resizeMinDownSample = 12;
     private int[] meanColor = null;
-    private double minThreshhold = 1.0E-5;
 
     public Color getMeanColor() {
       return new Color(meanColor[2], meanColor[1], meanColor[0]);
     }
 
     public boolean isMeanColorEqual(Color otherMeanColor) {
-      Color col = getMeanColor();
-      int r = (col.getRed() - otherMeanColor.getRed()) * (col.getRed() - otherMeanColor.getRed());
-      int g = (col.getGreen() - otherMeanColor.getGreen()) * (col.getGreen() - otherMeanColor.getGreen());
-      int b = (col.getBlue() - otherMeanColor.getBlue()) * (col.getBlue() - otherMeanColor.getBlue());
-      return Math.sqrt(r + g + b) < minThreshhold;
+      return CompiledTarget.isColorEqual(meanColor, otherMeanColor);
     }
 
     double targetStdDev = -1;
@@ -1235,53 +2827,19 @@ public class Finder implements Iterator<Match> {
       if (targetTypeText) {
         return;
       }
-      List<Mat> mats = Finder2.extractMask(target, true);
-      targetBGR = mats.get(0);
-      if (mask.empty()) {
-        mask = mats.get(1);
-      }
-
-      if (targetBGR.channels() == 1) {
-        grayColor = true;
-      }
-      plainColor = false;
-      blackColor = false;
-      resizeFactor = Math.min(((double) targetBGR.width()) / resizeMinDownSample,
-          ((double) targetBGR.height()) / resizeMinDownSample);
-      resizeFactor = Math.max(1.0, resizeFactor);
-      MatOfDouble pMean = new MatOfDouble();
-      MatOfDouble pStdDev = new MatOfDouble();
-
-      if (mask.empty()) {
-        Core.meanStdDev(targetBGR, pMean, pStdDev);
-      } else {
-        List<Mat> maskMats = new ArrayList<>();
-        Core.split(mask, maskMats);
-        Core.meanStdDev(targetBGR, pMean, pStdDev, maskMats.get(0));
-      }
-      double sum = 0.0;
-      double[] arr = pStdDev.toArray();
-      for (int i = 0; i < arr.length; i++) {
-        sum += arr[i];
-      }
-      targetStdDev = sum;
-      if (sum < minThreshhold) {
-        plainColor = true;
-      }
-      sum = 0.0;
-      arr = pMean.toArray();
-      meanColor = new int[arr.length];
-      for (int i = 0; i < arr.length; i++) {
-        meanColor[i] = (int) arr[i];
-        sum += arr[i];
-      }
-      targetMean = sum;
-      if (sum < minThreshhold && plainColor) {
-        blackColor = true;
-      }
-      if (meanColor.length > 1) {
-        whiteColor = isMeanColorEqual(Color.WHITE);
+      if (compiled == null) {
+        compiled = CompiledTarget.compile(target, mask);
       }
+      targetBGR = compiled.targetBGR;
+      mask = compiled.mask;
+      grayColor = compiled.grayColor;
+      plainColor = compiled.plainColor;
+      blackColor = compiled.blackColor;
+      whiteColor = compiled.whiteColor;
+      resizeFactor = compiled.resizeFactor;
+      meanColor = compiled.meanColor;
+      targetStdDev = compiled.targetStdDev;
+      targetMean = compiled.targetMean;
     }
 
     public String toString() {
@@ -1316,7 +2874,38 @@ public class Finder implements Iterator<Match> {
       offY = off[1];
     }
 
-    private Core.MinMaxLocResult resultMinMax = null;
+    void addOffset(int x, int y) {
+      offX += x;
+      offY += y;
+    }
+
+    /**
+     * the result of the matching is released (only the matches already evaluated are still available)
+     */
+    void release() {
+      if (result != null) {
+        result.release();
+      }
+    }
+
+    private double scale = 1;
+
+    void setScale(double scale) {
+      this.scale = scale;
+    }
+
+    double getScale() {
+      return scale;
+    }
+
+    // the score of the best position, even if below the wanted similarity
+    double getBestScore() {
+      if (result == null) {
+        return matches.isEmpty() ? -1 : matches.get(0).getScore();
+      }
+      Finder2.Peak peak = getPeak(0);
+      return peak == null ? -1 : peak.score;
+    }
 
     private double currentScore = -1;
     double targetScore = -1;
@@ -1327,37 +2916,48 @@ public class Finder implements Iterator<Match> {
 
     private int currentX = -1;
     private int currentY = -1;
-    private int baseW = -1;
-    private int baseH = -1;
     private int targetW = -1;
     private int targetH = -1;
     private int marginX = -1;
     private int marginY = -1;
 
+    private List<Finder2.Peak> peaks = null;
+    private int evaluatedCount = -1;
+    private boolean evaluatedIsMatch = false;
+
     public boolean hasNext() {
-      if (findInput.isText()) {
+      if (result == null) {
+        // text or ImageMatcher results: ready made matches
         if (matches.size() > 0) {
           return true;
         }
         return false;
       }
-      resultMinMax = Core.minMaxLoc(result);
-      currentScore = resultMinMax.maxVal;
-      currentX = (int) resultMinMax.maxLoc.x;
-      currentY = (int) resultMinMax.maxLoc.y;
+      if (evaluatedCount == matchCount) {
+        return evaluatedIsMatch;
+      }
       if (lastScore < 0) {
-        lastScore = currentScore;
         targetScore = findInput.getScore();
-        baseW = result.width();
-        baseH = result.height();
         targetW = findInput.getTarget().width();
         targetH = findInput.getTarget().height();
-        marginX = (int) (targetW * 0.8);
-        marginY = (int) (targetH * 0.8);
+        marginX = Math.max(1, (int) (targetW * 0.8));
+        marginY = Math.max(1, (int) (targetH * 0.8));
         matchCount = 0;
       }
       boolean isMatch = false;
-      if (currentScore > targetScore) {
+      Finder2.Peak peak = null;
+      if (findInput.getMaxMatches() < 1 || matchCount < findInput.getMaxMatches()) {
+        peak = getPeak(matchCount);
+      }
+      if (peak != null) {
+        currentScore = peak.score;
+        currentX = peak.x;
+        currentY = peak.y;
+        if (lastScore < 0) {
+          lastScore = currentScore;
+        }
+      }
+      if (peak != null && currentScore > targetScore) {
         if (matchCount == 0) {
           isMatch = true;
         } else if (matchCount == 1) {
@@ -1374,22 +2974,35 @@ public class Finder implements Iterator<Match> {
           Debug.log(3, "findAll: (%d) stop: %.4f (%.4f) %s", matchCount, currentScore, scoreMeanDiff, findInput);
         }
       }
+      evaluatedCount = matchCount;
+      evaluatedIsMatch = isMatch;
       return isMatch;
     }
 
+    private Finder2.Peak getPeak(int n) {
+      if (n == 0 && peaks == null) {
+        // the best match is enough for a single find: avoid the peak extraction
+        Core.MinMaxLocResult resultMinMax = Core.minMaxLoc(result);
+        return new Finder2.Peak((int) resultMinMax.maxLoc.x, (int) resultMinMax.maxLoc.y, resultMinMax.maxVal);
+      }
+      if (peaks == null) {
+        peaks = Finder2.getPeaks(result, targetScore, marginX, marginY, findInput.getMaxMatches());
+      }
+      return n < peaks.size() ? peaks.get(n) : null;
+    }
+
     public Match next() {
       Match match = null;
       if (hasNext()) {
-        if (findInput.isText()) {
-          return matches.remove(0);
+        if (result == null) {
+          match = matches.remove(0);
+          match.x += offX;
+          match.y += offY;
+          return match;
         } else {
           match = new Match(currentX + offX, currentY + offY, targetW, targetH, currentScore, null);
           matchCount++;
           lastScore = currentScore;
-          //int margin = getPurgeMargin();
-          Range rangeX = new Range(Math.max(currentX - marginX, 0), Math.min(currentX + marginX, result.width()));
-          Range rangeY = new Range(Math.max(currentY - marginY, 0), Math.min(currentY + marginY, result.height()));
-          result.colRange(rangeX).rowRange(rangeY).setTo(new Scalar(0f));
         }
       }
       return match;
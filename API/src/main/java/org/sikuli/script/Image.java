@@ -113,7 +113,8 @@ public class Image extends Element {
     imgTarget.setIsAbsolute(imageIsAbsolute);
     imgTarget.setIsText(imageIsText);
     imgTarget.setIsBundled(imageIsBundled);
-    imgTarget.setLastSeen(getLastSeen(), getLastSeenScore());
+    imgTarget.restoreLastSeen(lastSeen, lastScore, lastScale);
+    imgTarget.copyLocationPriors(this);
     imgTarget.setHasIOException(hasIOException());
     if (isPattern()) {
       imgTarget.setSimilarity(similarity);
@@ -866,6 +867,7 @@ public class Image extends Element {
    */
   public static void reset() {
     clearCache(0);
+    Finder.clearCompiledTargets();
     imageNames.clear();
     imageFiles.clear();
   }
@@ -1147,6 +1149,7 @@ public class Image extends Element {
    * @return the rectangle where it was found
    */
   public Rectangle getLastSeen() {
+    checkLastSeenStore();
     return lastSeen;
   }
 
@@ -1169,8 +1172,162 @@ public class Image extends Element {
   public Image setLastSeen(Rectangle lastSeen, double sim) {
     this.lastSeen = lastSeen;
     this.lastScore = sim;
+    if (lastSeen != null) {
+      addLocationPrior(lastSeen);
+    }
+    if (lastSeen != null && Settings.CheckLastSeenStore) {
+      LastSeenStore.store(this);
+    }
     return this;
   }
+
+  // the image content (in-memory image or file), for which the LastSeenStore was asked
+  private Object storeCheckedFor = null;
+
+  private void checkLastSeenStore() {
+    if (lastSeen != null || !Settings.CheckLastSeenStore || !isValid() || isText()) {
+      return;
+    }
+    Object content = bimg != null ? bimg : fileURL;
+    if (content == null || storeCheckedFor == content) {
+      return;
+    }
+    storeCheckedFor = content;
+    LastSeenStore.restore(this);
+  }
+
+  void restoreLastSeen(Rectangle lastSeen, double sim, float scale) {
+    this.lastSeen = lastSeen;
+    lastScore = sim;
+    lastScale = scale;
+  }
+
+  private BufferedImage hashedFor = null;
+  private String contentHash = null;
+
+  /**
+   * @return a hash of the pixels (null if the image is not loaded)
+   */
+  String getContentHash() {
+    BufferedImage image = bimg != null ? bimg : (isValid() && !isText() ? get() : null);
+    if (image == null) {
+      return null;
+    }
+    if (hashedFor != image) {
+      int width = image.getWidth();
+      int height = image.getHeight();
+      int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
+      try {
+        java.security.MessageDigest digest = java.security.MessageDigest.getInstance("SHA-1");
+        byte[] bytes = new byte[pixels.length * 4 + 8];
+        java.nio.ByteBuffer.wrap(bytes).putInt(width).putInt(height).asIntBuffer().put(pixels);
+        StringBuilder hash = new StringBuilder();
+        for (byte b : digest.digest(bytes)) {
+          hash.append(String.format("%02x", b));
+        }
+        contentHash = hash.toString();
+      } catch (java.security.NoSuchAlgorithmException ex) {
+        return null;
+      }
+      hashedFor = image;
+    }
+    return contentHash;
+  }
+
+  private float lastScale = 0;
+
+  /**
+   * if the image was already found before using a Pattern with a scale range
+   *
+   * @return the scale factor it was found with (0 = not known)
+   */
+  public float getLastSeenScale() {
+    checkLastSeenStore();
+    return lastScale;
+  }
+
+  /**
+   * Internal Use: set the scale factor the image was found with
+   *
+   * @param scale factor
+   * @return the image
+   */
+  public Image setLastSeenScale(float scale) {
+    lastScale = scale;
+    if (lastSeen != null && Settings.CheckLastSeenStore) {
+      LastSeenStore.store(this);
+    }
+    return this;
+  }
+  //</editor-fold>
+
+  //<editor-fold defaultstate="collapsed" desc="00 8 location priors">
+  // max number of places kept
+  private static final int priorsMax = 8;
+  // with every find, the weight of all places is multiplied by this
+  private static final double priorsDecay = 0.8;
+
+  private static class LocationPrior {
+    Rectangle rect;
+    double weight;
+
+    LocationPrior(Rectangle rect, double weight) {
+      this.rect = rect;
+      this.weight = weight;
+    }
+  }
+
+  private List<LocationPrior> locationPriors = new ArrayList<>();
+
+  // a find within half the image size of a known place counts for that place (which moves there)
+  private synchronized void addLocationPrior(Rectangle rect) {
+    LocationPrior found = null;
+    for (LocationPrior prior : locationPriors) {
+      prior.weight *= priorsDecay;
+      if (found == null && Math.abs(prior.rect.getCenterX() - rect.getCenterX()) <= rect.width / 2.0
+          && Math.abs(prior.rect.getCenterY() - rect.getCenterY()) <= rect.height / 2.0) {
+        found = prior;
+      }
+    }
+    if (found != null) {
+      found.rect = new Rectangle(rect);
+      found.weight += 1;
+      return;
+    }
+    if (locationPriors.size() == priorsMax) {
+      locationPriors.remove(Collections.min(locationPriors, Comparator.comparingDouble(prior -> prior.weight)));
+    }
+    locationPriors.add(new LocationPrior(new Rectangle(rect), 1));
+  }
+
+  /**
+   * the places, where the image was found most often recently
+   * (the weight of a place decays with every find elsewhere)
+   *
+   * @param count max number of places
+   * @return the rectangles, most likely first (empty if never found)
+   */
+  public synchronized List<Rectangle> getLocationPriors(int count) {
+    List<LocationPrior> sorted = new ArrayList<>(locationPriors);
+    sorted.sort((a, b) -> Double.compare(b.weight, a.weight));
+    List<Rectangle> rects = new ArrayList<>();
+    for (int n = 0; n < Math.min(count, sorted.size()); n++) {
+      rects.add(new Rectangle(sorted.get(n).rect));
+    }
+    return rects;
+  }
+
+  private void copyLocationPriors(Image img) {
+    List<LocationPrior> copied = new ArrayList<>();
+    synchronized (img) {
+      for (LocationPrior prior : img.locationPriors) {
+        copied.add(new LocationPrior(new Rectangle(prior.rect), prior.weight));
+      }
+    }
+    synchronized (this) {
+      locationPriors = copied;
+    }
+  }
   //</editor-fold>
 
   //<editor-fold desc="10 raster">
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2010-2021, sikuli.org, sikulix.com - MIT license
+ */
+
+package org.sikuli.script;
+
+import org.opencv.core.Mat;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * a search engine, that finds an image in another image (see Pattern.matcher)
+ * <br>without one, the built-in template matching (OpenCV matchTemplate) is used
+ * <br>the time taken by each engine is recorded (see getCost) to help choosing the best one
+ */
+public interface ImageMatcher {
+
+  /**
+   * name of the built-in template matching in getCost
+   */
+  String TEMPLATE = "template";
+
+  /**
+   * name of the built-in search for targets of one plain color in getCost
+   */
+  String PLAIN = "plain";
+
+  /**
+   * @return a short name, used for logging and getCost
+   */
+  String getName();
+
+  /**
+   * find the target in the image
+   * <br>must be thread safe, the same matcher might be used in parallel
+   *
+   * @param where      the image to search in (BGR cvMat, must not be modified)
+   * @param what       the target (BGR or gray cvMat, the same Mat for the same image while cached)
+   * @param mask       the mask of the target (empty if none)
+   * @param similarity the minimum score (0 ... 1)
+   * @param maxMatches max number of matches wanted (0 = no limit)
+   * @return the matches (coordinates relative to where) ordered best first (empty if none)
+   */
+  List<Match> find(Mat where, Mat what, Mat mask, double similarity, int maxMatches);
+
+  /**
+   * @param name an engine's name
+   * @return the cost recorded for this engine so far
+   */
+  static Cost getCost(String name) {
+    return Cost.get(name);
+  }
+
+  /**
+   * the time an engine took for its searches
+   */
+  final class Cost {
+    private static final Map<String, Cost> costs = new ConcurrentHashMap<>();
+
+    static Cost get(String name) {
+      return costs.computeIfAbsent(name, Cost::new);
+    }
+
+    private final String name;
+    private long calls = 0;
+    private long msec = 0;
+    private long lastMsec = 0;
+
+    private Cost(String name) {
+      this.name = name;
+    }
+
+    synchronized void add(long msec) {
+      calls++;
+      this.msec += msec;
+      lastMsec = msec;
+    }
+
+    /**
+     * @return number of searches
+     */
+    public synchronized long getCalls() {
+      return calls;
+    }
+
+    /**
+     * @return msec of all searches
+     */
+    public synchronized long getMsec() {
+      return msec;
+    }
+
+    /**
+     * @return msec of the last search
+     */
+    public synchronized long getLastMsec() {
+      return lastMsec;
+    }
+
+    /**
+     * @return average msec per search
+     */
+    public synchronized double getMeanMsec() {
+      return calls == 0 ? 0 : (double) msec / calls;
+    }
+
+    public synchronized void reset() {
+      calls = 0;
+      msec = 0;
+      lastMsec = 0;
+    }
+
+    @Override
+    public synchronized String toString() {
+      return String.format("%s: %d searches, mean %.1f msec, last %d msec", name, calls, getMeanMsec(), lastMsec);
+    }
+  }
+}
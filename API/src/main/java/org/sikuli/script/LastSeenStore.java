@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2010-2021, sikuli.org, sikulix.com - MIT license
+ */
+
+package org.sikuli.script;
+
+import org.sikuli.basics.Debug;
+import org.sikuli.basics.Settings;
+import org.sikuli.support.Commons;
+
+import java.awt.*;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * keeps the lastSeen of images (rectangle, score, scale) on disk across script runs (see Settings.CheckLastSeenStore)
+ * <br>an entry is keyed by the content of the image (hash of the pixels) and the layout of the screens
+ * <br>the file is read with the first lookup and written in the background some time after changes (in batches)
+ */
+class LastSeenStore {
+
+  private static final String me = "LastSeenStore: ";
+  private static final int lvl = 3;
+
+  // msec after a change, until the changes are written
+  private static final long writeDelay = 2000;
+  private static final String fileName = "lastseen.txt";
+
+  private static final Map<String, String> entries = new ConcurrentHashMap<>();
+  private static final Set<String> changed = ConcurrentHashMap.newKeySet();
+  private static boolean loaded = false;
+  private static String screenLayout = null;
+  private static ScheduledExecutorService writer = null;
+  private static boolean writeScheduled = false;
+
+  private LastSeenStore() {
+  }
+
+  static File getFile() {
+    if (Settings.CheckLastSeenStoreFile != null) {
+      return new File(Settings.CheckLastSeenStoreFile);
+    }
+    return new File(Commons.getAppDataStore(), fileName);
+  }
+
+  /**
+   * set the stored lastSeen of the image (if any)
+   *
+   * @param img the image
+   * @return true if an entry was found
+   */
+  static boolean restore(Image img) {
+    String key = getKey(img);
+    if (key == null) {
+      return false;
+    }
+    load();
+    String entry = entries.get(key);
+    if (entry == null) {
+      return false;
+    }
+    try {
+      String[] values = entry.split(" ");
+      Rectangle rect = new Rectangle(Integer.parseInt(values[0]), Integer.parseInt(values[1]),
+          Integer.parseInt(values[2]), Integer.parseInt(values[3]));
+      img.restoreLastSeen(rect, Double.parseDouble(values[4]), Float.parseFloat(values[5]));
+      Debug.log(lvl, me + "restored %s: %s", img.getName(), entry);
+      return true;
+    } catch (RuntimeException ex) {
+      entries.remove(key);
+      return false;
+    }
+  }
+
+  /**
+   * remember the lastSeen of the image, to be written with the next batch
+   *
+   * @param img the image
+   */
+  static void store(Image img) {
+    Rectangle rect = img.getLastSeen();
+    String key = getKey(img);
+    if (rect == null || key == null) {
+      return;
+    }
+    load();
+    String entry = String.format(Locale.US, "%d %d %d %d %.4f %.4f", rect.x, rect.y, rect.width, rect.height,
+        img.getLastSeenScore(), img.getLastSeenScale());
+    if (entry.equals(entries.put(key, entry))) {
+      return;
+    }
+    changed.add(key);
+    scheduleWrite();
+  }
+
+  private static String getKey(Image img) {
+    String hash = img.getContentHash();
+    if (hash == null) {
+      return null;
+    }
+    return hash + "|" + getScreenLayout();
+  }
+
+  // the bounds of all screens (a stored lastSeen is only valid with the same layout)
+  private static synchronized String getScreenLayout() {
+    if (screenLayout == null) {
+      StringBuilder layout = new StringBuilder();
+      try {
+        for (GraphicsDevice device : GraphicsEnvironment.getLocalGraphicsEnvironment().getScreenDevices()) {
+          Rectangle bounds = device.getDefaultConfiguration().getBounds();
+          layout.append(String.format("%d,%d,%d,%d;", bounds.x, bounds.y, bounds.width, bounds.height));
+        }
+      } catch (HeadlessException ex) {
+        layout.append("headless");
+      }
+      screenLayout = layout.toString();
+    }
+    return screenLayout;
+  }
+
+  private static synchronized void load() {
+    if (loaded) {
+      return;
+    }
+    loaded = true;
+    Map<String, String> stored = read(getFile());
+    stored.forEach(entries::putIfAbsent);
+    Debug.log(lvl, me + "loaded %d entries from %s", stored.size(), getFile());
+  }
+
+  private static Map<String, String> read(File file) {
+    Map<String, String> stored = new HashMap<>();
+    if (!file.exists()) {
+      return stored;
+    }
+    try {
+      for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+        int separator = line.indexOf('=');
+        if (separator > 0) {
+          stored.put(line.substring(0, separator), line.substring(separator + 1));
+        }
+      }
+    } catch (IOException ex) {
+      Debug.error(me + "not readable: %s (%s)", file, ex.getMessage());
+    }
+    return stored;
+  }
+
+  private static synchronized void scheduleWrite() {
+    if (writeScheduled) {
+      return;
+    }
+    if (writer == null) {
+      writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "SikuliX-LastSeenStore");
+        thread.setDaemon(true);
+        return thread;
+      });
+      Runtime.getRuntime().addShutdownHook(new Thread(LastSeenStore::write));
+    }
+    writeScheduled = true;
+    writer.schedule(LastSeenStore::write, writeDelay, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * write the changed entries now
+   * <br>the file is read again before, so entries written by other processes meanwhile are kept
+   */
+  static synchronized void write() {
+    writeScheduled = false;
+    if (changed.isEmpty()) {
+      return;
+    }
+    File file = getFile();
+    Map<String, String> stored = read(file);
+    Map<String, String> written = new HashMap<>();
+    for (String key : changed) {
+      String entry = entries.get(key);
+      if (entry != null) {
+        written.put(key, entry);
+      }
+    }
+    stored.putAll(written);
+    StringBuilder content = new StringBuilder();
+    stored.forEach((key, entry) -> content.append(key).append('=').append(entry).append('\n'));
+    try {
+      File parent = file.getAbsoluteFile().getParentFile();
+      if (parent != null) {
+        parent.mkdirs();
+      }
+      File temp = File.createTempFile(fileName, ".tmp", parent);
+      Files.write(temp.toPath(), content.toString().getBytes(StandardCharsets.UTF_8));
+      Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      // changed again meanwhile: stays for the next batch
+      written.forEach((key, entry) -> {
+        if (entry.equals(entries.get(key))) {
+          changed.remove(key);
+        }
+      });
+      Debug.log(lvl, me + "written %d changes (%d entries) to %s", written.size(), stored.size(), file);
+    } catch (IOException ex) {
+      Debug.error(me + "not writable: %s (%s)", file, ex.getMessage());
+    }
+  }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2010-2021, sikuli.org, sikulix.com - MIT license
+ */
+
+package org.sikuli.script;
+
+import org.opencv.calib3d.Calib3d;
+import org.opencv.core.*;
+import org.opencv.features2d.DescriptorMatcher;
+import org.opencv.features2d.ORB;
+import org.opencv.imgproc.Imgproc;
+import org.sikuli.basics.Debug;
+
+import java.util.*;
+
+/**
+ * a feature based ImageMatcher: ORB keypoints, descriptor matching and a homography
+ * <br>for large targets (whole dialogs, maps), that might be partially covered, slightly rotated or scaled
+ * <br>not for small targets like icons and buttons (too few keypoints)
+ * <br>the score of a match is the part of the matched keypoints, that agree with the homography
+ * <br>the keypoints of a target are cached as long as its cvMat is alive
+ * <br>only the best match is returned
+ */
+public class OrbMatcher implements ImageMatcher {
+
+  public static final String NAME = "orb";
+
+  private static final double ratio = 0.75;
+  private static final int minInliers = 10;
+
+  private int targetFeatures = 1000;
+  private int sceneFeatures = 5000;
+
+  private final Map<Mat, Features> targets = Collections.synchronizedMap(new WeakHashMap<>());
+
+  public OrbMatcher() {
+  }
+
+  /**
+   * @param targetFeatures max keypoints taken from a target
+   * @param sceneFeatures  max keypoints taken from the image searched in
+   */
+  public OrbMatcher(int targetFeatures, int sceneFeatures) {
+    this.targetFeatures = targetFeatures;
+    this.sceneFeatures = sceneFeatures;
+  }
+
+  @Override
+  public String getName() {
+    return NAME;
+  }
+
+  private static class Features {
+    MatOfKeyPoint keyPoints = new MatOfKeyPoint();
+    Mat descriptors = new Mat();
+  }
+
+  private static Features detect(Mat image, Mat mask, int maxFeatures) {
+    Mat gray = image;
+    if (image.channels() > 1) {
+      gray = new Mat();
+      Imgproc.cvtColor(image, gray, image.channels() == 4 ? Imgproc.COLOR_BGRA2GRAY : Imgproc.COLOR_BGR2GRAY);
+    }
+    Features features = new Features();
+    ORB.create(maxFeatures).detectAndCompute(gray, mask, features.keyPoints, features.descriptors);
+    return features;
+  }
+
+  private Features getTargetFeatures(Mat what, Mat mask) {
+    Features features = targets.get(what);
+    if (features == null) {
+      Mat mask1 = mask;
+      if (!mask.empty() && mask.channels() > 1) {
+        mask1 = new Mat();
+        Core.extractChannel(mask, mask1, 0);
+      }
+      features = detect(what, mask1, targetFeatures);
+      targets.put(what, features);
+    }
+    return features;
+  }
+
+  @Override
+  public List<Match> find(Mat where, Mat what, Mat mask, double similarity, int maxMatches) {
+    List<Match> matches = new ArrayList<>();
+    Features target = getTargetFeatures(what, mask);
+    if (target.descriptors.empty() || target.keyPoints.rows() < minInliers) {
+      Debug.log(3, "OrbMatcher: target has too few keypoints (%d)", target.keyPoints.rows());
+      return matches;
+    }
+    Features scene = detect(where, new Mat(), sceneFeatures);
+    if (scene.descriptors.empty() || scene.keyPoints.rows() < minInliers) {
+      return matches;
+    }
+    List<MatOfDMatch> knnMatches = new ArrayList<>();
+    DescriptorMatcher.create(DescriptorMatcher.BRUTEFORCE_HAMMING)
+        .knnMatch(target.descriptors, scene.descriptors, knnMatches, 2);
+    KeyPoint[] targetKeyPoints = target.keyPoints.toArray();
+    KeyPoint[] sceneKeyPoints = scene.keyPoints.toArray();
+    List<Point> targetPoints = new ArrayList<>();
+    List<Point> scenePoints = new ArrayList<>();
+    for (MatOfDMatch knnMatch : knnMatches) {
+      DMatch[] pair = knnMatch.toArray();
+      if (pair.length > 1 && pair[0].distance < ratio * pair[1].distance) {
+        targetPoints.add(targetKeyPoints[pair[0].queryIdx].pt);
+        scenePoints.add(sceneKeyPoints[pair[0].trainIdx].pt);
+      }
+    }
+    if (targetPoints.size() < minInliers) {
+      return matches;
+    }
+    MatOfPoint2f targetPointsMat = new MatOfPoint2f();
+    targetPointsMat.fromList(targetPoints);
+    MatOfPoint2f scenePointsMat = new MatOfPoint2f();
+    scenePointsMat.fromList(scenePoints);
+    Mat inliers = new Mat();
+    Mat homography = Calib3d.findHomography(targetPointsMat, scenePointsMat, Calib3d.RANSAC, 3, inliers);
+    if (homography.empty()) {
+      return matches;
+    }
+    int inlierCount = Core.countNonZero(inliers);
+    double score = (double) inlierCount / targetPoints.size();
+    Debug.log(3, "OrbMatcher: %d of %d matched keypoints agree (%.2f)", inlierCount, targetPoints.size(), score);
+    if (inlierCount < minInliers || score < similarity) {
+      return matches;
+    }
+    MatOfPoint2f corners = new MatOfPoint2f(new Point(0, 0), new Point(what.cols(), 0),
+        new Point(what.cols(), what.rows()), new Point(0, what.rows()));
+    MatOfPoint2f projected = new MatOfPoint2f();
+    Core.perspectiveTransform(corners, projected, homography);
+    MatOfPoint outline = new MatOfPoint();
+    projected.convertTo(outline, CvType.CV_32S);
+    if (!Imgproc.isContourConvex(outline)) {
+      // a twisted outline is no plausible view of the target
+      return matches;
+    }
+    Rect rect = Imgproc.boundingRect(outline);
+    int x = Math.max(0, rect.x);
+    int y = Math.max(0, rect.y);
+    int w = Math.min(where.cols(), rect.x + rect.width) - x;
+    int h = Math.min(where.rows(), rect.y + rect.height) - y;
+    if (w > 0 && h > 0) {
+      matches.add(new Match(x, y, w, h, score, null));
+    }
+    return matches;
+  }
+}
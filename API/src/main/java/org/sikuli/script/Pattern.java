@@ -27,6 +27,13 @@ public class Pattern {
   private int waitAfter = 0;
   private boolean imagePattern = false;
   private float resizeFactor = 0;
+  private int maxMatches = 0;
+  private float scaleMin = 0;
+  private float scaleMax = 0;
+  private ImageMatcher matcher = null;
+  private boolean sampled = false;
+  private boolean sampledGuaranteed = true;
+  private Boolean grayFirst = null;
 
   public static Pattern make(Image img, double sim, Location off, float rFactor, String mask) {
     org.sikuli.script.Pattern pattern = new org.sikuli.script.Pattern(img);
@@ -56,6 +63,13 @@ public class Pattern {
     offset.y = p.offset.y;
     imagePattern = image.isPattern();
     resizeFactor = p.getResize();
+    maxMatches = p.maxMatches;
+    scaleMin = p.scaleMin;
+    scaleMax = p.scaleMax;
+    matcher = p.matcher;
+    sampled = p.sampled;
+    sampledGuaranteed = p.sampledGuaranteed;
+    grayFirst = p.grayFirst;
   }
 
   /**
@@ -78,6 +92,129 @@ public class Pattern {
     return resizeFactor;
   }
 
+  /**
+   * find the image in any size between min and max (e.g. 1.0 ... 2.0 for 100% ... 200% display scaling)
+   * <br>the scale the image was found with the last time is tried first (Image.getLastSeenScale)
+   * <br>only used with find/wait/exists (not with findAll), overrides resize
+   *
+   * @param min smallest factor (&gt; 0)
+   * @param max largest factor
+   * @return the Pattern object itself
+   */
+  public Pattern scaleRange(float min, float max) {
+    scaleMin = Math.min(min, max);
+    scaleMax = Math.max(min, max);
+    return this;
+  }
+
+  /**
+   * @return smallest scale factor (0 = no scale range)
+   */
+  public float getScaleMin() {
+    return scaleMin;
+  }
+
+  /**
+   * @return largest scale factor (0 = no scale range)
+   */
+  public float getScaleMax() {
+    return scaleMax;
+  }
+
+  /**
+   * @return true if a scale range is set
+   */
+  public boolean hasScaleRange() {
+    return scaleMin > 0 && scaleMax > scaleMin;
+  }
+
+  /**
+   * use another search engine for this pattern (e.g. new OrbMatcher())
+   * <br>null: the standard template matching
+   * <br>a scale range is not used with a matcher
+   *
+   * @param matcher an ImageMatcher
+   * @return the Pattern object itself
+   */
+  public Pattern matcher(ImageMatcher matcher) {
+    this.matcher = matcher;
+    return this;
+  }
+
+  /**
+   * @return the search engine to be used (null: the standard template matching)
+   */
+  public ImageMatcher getMatcher() {
+    return matcher;
+  }
+
+  /**
+   * for large images (dialogs, panels): first only some significant pixels of the image are compared
+   * at every position, the full comparison is only done, where these pixels fit
+   * <br>like the normal search, the comparison does not depend on brightness and contrast
+   * <br>only used with find/wait/exists (not with findAll, masks or plain color images)
+   * <br>if no match is found this way, the normal search follows (see sampled(boolean))
+   * <br>time for a 600x400 image in a 1920x1080 screen: about 130 msec for the sampled stage,
+   * about 200 msec for a normal search of the whole screen, but only about 35 msec,
+   * if the normal search already succeeds on the downsized images
+   * <br>so it mainly pays off with sampled(false), where the image is expected to be absent (waitVanish)
+   *
+   * @return the Pattern object itself
+   */
+  public Pattern sampled() {
+    return sampled(true);
+  }
+
+  /**
+   * see sampled()
+   *
+   * @param guaranteed true: if nothing is found with the sampled pixels, the normal search follows,
+   *                   so nothing is missed (default)
+   *                   <br>false: only the sampled search (faster for waitVanish and failing finds,
+   *                   but a match, whose sampled pixels correlate much less than the whole image, might be missed)
+   * @return the Pattern object itself
+   */
+  public Pattern sampled(boolean guaranteed) {
+    sampled = true;
+    sampledGuaranteed = guaranteed;
+    return this;
+  }
+
+  /**
+   * @return true if the image is searched by sampled pixels first
+   */
+  public boolean isSampled() {
+    return sampled;
+  }
+
+  /**
+   * @return true if a normal search follows a sampled search without success
+   */
+  public boolean isSampledGuaranteed() {
+    return sampledGuaranteed;
+  }
+
+  /**
+   * match in grayscale first, only the best candidates are verified in color
+   * <br>(faster, the default is Settings.FindGrayFirst)
+   * <br>only used with find/wait/exists (not with findAll, masks or plain color images)
+   * and not for images, whose colors differ much more than their brightness (flat in gray)
+   *
+   * @param grayFirst true/false
+   * @return the Pattern object itself
+   */
+  public Pattern grayFirst(boolean grayFirst) {
+    this.grayFirst = grayFirst;
+    return this;
+  }
+
+  /**
+   * @return true if matched in grayscale first (the Pattern's setting or Settings.FindGrayFirst)
+   */
+  public boolean isGrayFirst() {
+    return grayFirst == null ? Settings.FindGrayFirst : grayFirst;
+  }
+
   /**
    * true if Pattern was created from Image
    *
@@ -303,6 +440,24 @@ public class Pattern {
     return this.similarity;
   }
 
+  /**
+   * limits the number of matches returned by findAll (the best ones)
+   *
+   * @param max max number of matches (0 = no limit)
+   * @return the Pattern object itself
+   */
+  public Pattern maxMatches(int max) {
+    maxMatches = max;
+    return this;
+  }
+
+  /**
+   * @return the max number of matches for findAll (0 = no limit)
+   */
+  public int getMaxMatches() {
+    return maxMatches;
+  }
+
   /**
    * set the offset from the match's center to be used with mouse actions
    *
@@ -3,6 +3,7 @@
  */
 package org.sikuli.script;
 
+import org.opencv.core.Mat;
 import org.sikuli.basics.Debug;
 import org.sikuli.basics.Settings;
 import org.sikuli.support.*;
@@ -10,6 +11,7 @@ import org.sikuli.support.Observer;
 import org.sikuli.support.devices.HelpDevice;
 import org.sikuli.support.devices.IRobot;
 import org.sikuli.support.devices.IScreen;
+import org.sikuli.support.devices.RobotDesktop;
 import org.sikuli.util.Highlight;
 
 import java.awt.Rectangle;
@@ -17,6 +19,10 @@ import java.awt.event.InputEvent;
 import java.awt.event.KeyEvent;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -287,6 +293,189 @@ public class Region extends Element {
 
   private int repeatWaitTimeDefault = Settings.RepeatWaitTime;
   private int repeatWaitTime = repeatWaitTimeDefault;
+
+  /**
+   * statistics of a wait (wait, exists, waitVanish, findAll, ...)
+   */
+  public static class WaitStats {
+    /**
+     * number of scans
+     */
+    public int scans = 0;
+    /**
+     * scans, where the search was skipped, since the screen did not change
+     */
+    public int skipped = 0;
+    /**
+     * msec from the scan before the successful one to the success (-1 not successful)
+     * <br>worst case for the time between the appearance (vanishing) and its detection
+     */
+    public long latency = -1;
+    /**
+     * msec for the complete wait
+     */
+    public long elapsed = 0;
+    /**
+     * scans, whose capture was prepared in parallel (see Settings.WaitScanPipelined)
+     */
+    public int prepared = 0;
+
+    @Override
+    public String toString() {
+      return String.format("scans: %d (skipped %d, prepared %d) latency: %d msec elapsed: %d msec",
+          scans, skipped, prepared, latency, elapsed);
+    }
+  }
+
+  /**
+   * @return the statistics of the last wait in this region (null if none yet)
+   */
+  public WaitStats getLastWaitStats() {
+    return lastWaitStats;
+  }
+
+  private WaitStats lastWaitStats = null;
+
+  /**
+   * statistics of the staged search around an image's lastSeen (see Settings.CheckLastSeenMargin)
+   * <br>stage 0: at lastSeen, stage 1...: in the growing areas around it
+   * <br>priors: at the other places the image was found recently (see Settings.CheckLastSeenPriors)
+   */
+  public static class LastSeenStats {
+    private final List<long[]> stages = new ArrayList<>();
+    private final long[] priors = new long[3];
+    private long regionSearches = 0;
+
+    private synchronized void add(int stage, boolean found, long msec) {
+      while (stages.size() <= stage) {
+        stages.add(new long[3]);
+      }
+      long[] counts = stages.get(stage);
+      counts[0]++;
+      counts[1] += found ? 1 : 0;
+      counts[2] += msec;
+    }
+
+    private synchronized void addPrior(boolean found, long msec) {
+      priors[0]++;
+      priors[1] += found ? 1 : 0;
+      priors[2] += msec;
+    }
+
+    private synchronized void addRegion() {
+      regionSearches++;
+    }
+
+    /**
+     * @return number of stages used so far
+     */
+    public synchronized int getStages() {
+      return stages.size();
+    }
+
+    /**
+     * @param stage 0 = lastSeen, 1... = areas around it
+     * @return number of searches in this stage
+     */
+    public synchronized long getSearches(int stage) {
+      return stage < stages.size() ? stages.get(stage)[0] : 0;
+    }
+
+    /**
+     * @param stage 0 = lastSeen, 1... = areas around it
+     * @return number of searches, that found the image in this stage
+     */
+    public synchronized long getHits(int stage) {
+      return stage < stages.size() ? stages.get(stage)[1] : 0;
+    }
+
+    /**
+     * @param stage 0 = lastSeen, 1... = areas around it
+     * @return msec spent in this stage
+     */
+    public synchronized long getMsec(int stage) {
+      return stage < stages.size() ? stages.get(stage)[2] : 0;
+    }
+
+    /**
+     * @return number of searches at former places
+     */
+    public synchronized long getPriorSearches() {
+      return priors[0];
+    }
+
+    /**
+     * @return number of searches at former places, that found the image (a search of the whole region avoided)
+     */
+    public synchronized long getPriorHits() {
+      return priors[1];
+    }
+
+    /**
+     * @return msec spent in searches at former places
+     */
+    public synchronized long getPriorMsec() {
+      return priors[2];
+    }
+
+    /**
+     * @return number of times, the whole region had to be searched after all stages
+     */
+    public synchronized long getRegionSearches() {
+      return regionSearches;
+    }
+
+    public synchronized void reset() {
+      stages.clear();
+      Arrays.fill(priors, 0);
+      regionSearches = 0;
+    }
+
+    @Override
+    public synchronized String toString() {
+      String stats = "";
+      for (int stage = 0; stage < stages.size(); stage++) {
+        long[] counts = stages.get(stage);
+        stats += String.format("%s: %d hits of %d (%d msec) ",
+            stage == 0 ? "lastSeen" : "around " + stage, counts[1], counts[0], counts[2]);
+      }
+      stats += String.format("former places: %d hits of %d (%d msec) ", priors[1], priors[0], priors[2]);
+      return stats + String.format("whole region: %d", regionSearches);
+    }
+  }
+
+  private static final LastSeenStats lastSeenStats = new LastSeenStats();
+
+  /**
+   * @return the statistics of the searches around lastSeen (all regions)
+   */
+  public static LastSeenStats getLastSeenStats() {
+    return lastSeenStats;
+  }
+  //</editor-fold>
+
+  //<editor-fold desc="012 Fields find parallel">
+
+  /**
+   * @return true if large images are matched in parallel in this region (see setFindParallel)
+   */
+  public boolean isFindParallel() {
+    return findParallel;
+  }
+
+  /**
+   * set the regions individual FindParallel<br>
+   * true = the matching is split into overlapping bands, that are matched in parallel on all cores<br>
+   * only done, if the region is larger than Settings.FindParallelMinSize<br>
+   * initial value is the global FindParallel setting at time of Region creation
+   *
+   * @param parallel true or false
+   */
+  public void setFindParallel(boolean parallel) {
+    findParallel = parallel;
+  }
+
+  private boolean findParallel = Settings.FindParallel;
   //</editor-fold>
 
   //<editor-fold desc="004 housekeeping">
@@ -635,6 +824,7 @@ public class Region extends Element {
     waitScanRate = r.waitScanRate;
     observeScanRate = r.observeScanRate;
     repeatWaitTime = r.repeatWaitTime;
+    findParallel = r.findParallel;
   }
 
   /**
@@ -2459,8 +2649,22 @@ public class Region extends Element {
    * @throws FindFailed if the Find operation failed
    */
   public <PSI> Iterator<Match> findAll(PSI target) throws FindFailed {
+    return findAll(target, 0);
+  }
+
+  /**
+   * finds the best occurences of the given Pattern, String or Image in the region and returns an Iterator of Matches.
+   *
+   * @param <PSI>      Pattern, String or Image
+   * @param target     A search criteria
+   * @param maxMatches max number of matches (0 = no limit, a Pattern's own maxMatches takes precedence)
+   * @return All elements matching
+   * @throws FindFailed if the Find operation failed
+   */
+  public <PSI> Iterator<Match> findAll(PSI target, int maxMatches) throws FindFailed {
     lastMatches = null;
     RepeatableFindAll rf = new RepeatableFindAll(target, null);
+    rf._maxMatches = maxMatches;
     Image img = rf._image;
     String targetStr = img.getName();
     Boolean response = true;
@@ -2666,6 +2870,28 @@ public class Region extends Element {
     return mList;
   }
 
+  /**
+   * search each of the given patterns in the region on one capture of the screen
+   * <br>the capture is prepared only once, the patterns are matched in parallel
+   *
+   * @param patterns the patterns to search
+   * @return for each pattern (same order) its match or null if not found
+   */
+  public List<Match> findEach(List<Pattern> patterns) {
+    if (patterns == null || patterns.size() == 0) {
+      return new ArrayList<Match>();
+    }
+    Finder finder = new Finder(getScreen().capture(this), this);
+    List<Match> matches = finder.findEach(patterns);
+    finder.destroy();
+    for (Match match : matches) {
+      if (match != null) {
+        match.getImage().setLastSeen(match.getRect(), match.getScore());
+      }
+    }
+    return matches;
+  }
+
   public Region unionAny(Object... targets) {
     if (targets.length < 2) {
       return this;
@@ -2765,6 +2991,16 @@ public class Region extends Element {
 
   //<editor-fold defaultstate="collapsed" desc="022 find internal methods">
 
+  // the next scan of a wait or observe: with Settings.WaitScanShared taken from a capture of the whole screen,
+  // that other waits/observers on the same screen share
+  private ScreenImage captureRepeat() {
+    IScreen screen = getScreen();
+    if (Settings.WaitScanShared && screen instanceof Screen) {
+      return ((Screen) screen).captureShared(getRect(), (long) (1000 / Settings.WaitScanRateMax));
+    }
+    return screen.capture(x, y, w, h);
+  }
+
   /**
    * Match doFind( Pattern/String/Image ) finds the given pattern on the screen and returns the best match without
    * waiting.
@@ -2782,8 +3018,7 @@ public class Region extends Element {
     }
     if (repeating != null && repeating._finder != null) {
       finder = repeating._finder;
-      simg = getScreen().capture(this);
-      finder.setScreenImage(simg);
+      repeating.nextScreen(finder);
       finder.setRepeating();
       if (Settings.FindProfiling) {
         Debug.logp("[FindProfiling] Region.doFind repeat: %d msec",
@@ -2854,6 +3089,9 @@ public class Region extends Element {
           Debug.logp("[FindProfiling] Region.doFind final: %d msec", lastSearchTime);
         }
       }
+      if (repeating == null) {
+        finder.destroy();
+      }
     }
     return match;
   }
@@ -2887,31 +3125,113 @@ public class Region extends Element {
         if (!(ptn.getSimilar() > score)) {
           shouldCheckLastSeen = true;
         }
+      } else if (Settings.CheckLastSeenStore) {
+        // plain images only with a stored lastSeen (as before, only patterns otherwise)
+        if (!(img.getSimilarity() > score)) {
+          shouldCheckLastSeen = true;
+        }
       }
     }
     if (shouldCheckLastSeen) {
-      Region r = Region.create(img.getLastSeen());
-      if (this.contains(r)) {
-        Finder f = new Finder(base.getSub(r.getRect()), r);
-        if (Debug.shouldHighlight()) {
-          if (getScreen().getW() > w + 10 && getScreen().getH() > h + 10) {
-            highlight(2, "#000255000");
-          }
-        }
+      Finder f = checkLastSeenStaged(base, img, score, ptn);
+      if (f != null) {
+        return f;
+      }
+    }
+    return new Finder(base, this);
+  }
 
-        if (ptn == null) {
-          f.find(new Pattern(img).similar(score));
-        } else {
-          f.find(new Pattern(ptn).similar(score));
-        }
-        if (f.hasNext()) {
-          log(logLevel, "checkLastSeen: still there");
-          return f;
+  /**
+   * search at lastSeen, then at the other places the image was found recently (see Settings.CheckLastSeenPriors),
+   * then in growing areas around lastSeen (see Settings.CheckLastSeenMargin),
+   * so a target, that only moved a little, costs a search in an area as large as the move
+   *
+   * @return the finder with the match or null (the whole region has to be searched)
+   */
+  private Finder checkLastSeenStaged(ScreenImage base, Image img, double score, Pattern ptn) {
+    Rectangle lastSeen = img.getLastSeen();
+    Rectangle searchable = getRect().intersection(base.getRect());
+    Pattern pattern = (ptn == null ? new Pattern(img) : new Pattern(ptn)).similar(score);
+    Finder f;
+    if (searchable.contains(lastSeen)) {
+      if (Debug.shouldHighlight()) {
+        if (getScreen().getW() > w + 10 && getScreen().getH() > h + 10) {
+          highlight(2, "#000255000");
         }
-        log(logLevel, "checkLastSeen: not there");
+      }
+      f = findInArea(base, lastSeen, pattern, 0);
+      if (f != null) {
+        log(logLevel, "checkLastSeen: still there");
+        return f;
       }
     }
-    return new Finder(base, this);
+    f = checkLocationPriors(base, img, searchable, pattern);
+    if (f != null) {
+      return f;
+    }
+    int rings = Settings.CheckLastSeenMargin > 0 ? Math.max(0, Settings.CheckLastSeenRings) : 0;
+    Rectangle searched = null;
+    for (int ring = 1; ring <= rings; ring++) {
+      int margin = Settings.CheckLastSeenMargin << (2 * (ring - 1));
+      Rectangle area = new Rectangle(lastSeen.x - margin, lastSeen.y - margin,
+          lastSeen.width + 2 * margin, lastSeen.height + 2 * margin).intersection(searchable);
+      if (area.equals(searchable)) {
+        // the whole region follows anyway
+        break;
+      }
+      if (area.width < lastSeen.width || area.height < lastSeen.height || area.equals(searched)) {
+        continue;
+      }
+      searched = area;
+      f = findInArea(base, area, pattern, ring);
+      if (f != null) {
+        log(logLevel, "checkLastSeen: found within %d pixels", margin);
+        return f;
+      }
+    }
+    log(logLevel, "checkLastSeen: not there");
+    lastSeenStats.addRegion();
+    return null;
+  }
+
+  // the places other than lastSeen, where the image was found recently, with the margin around
+  private Finder checkLocationPriors(ScreenImage base, Image img, Rectangle searchable, Pattern pattern) {
+    Rectangle lastSeen = img.getLastSeen();
+    int margin = Math.max(0, Settings.CheckLastSeenMargin);
+    for (Rectangle prior : img.getLocationPriors(Settings.CheckLastSeenPriors + 1)) {
+      if (prior.equals(lastSeen)) {
+        continue;
+      }
+      Rectangle area = new Rectangle(prior.x - margin, prior.y - margin,
+          prior.width + 2 * margin, prior.height + 2 * margin).intersection(searchable);
+      if (area.width < prior.width || area.height < prior.height) {
+        continue;
+      }
+      Finder f = findInArea(base, area, pattern, -1);
+      if (f != null) {
+        log(logLevel, "checkLastSeen: found at a former place (%d, %d)", prior.x, prior.y);
+        return f;
+      }
+    }
+    return null;
+  }
+
+  // stage: 0 = lastSeen, 1... = areas around it, -1 = former places
+  private Finder findInArea(ScreenImage base, Rectangle area, Pattern pattern, int stage) {
+    long begin = new Date().getTime();
+    Finder f = new Finder(base.getSub(area), Region.create(area));
+    f.find(pattern);
+    boolean found = f.hasNext();
+    if (stage < 0) {
+      lastSeenStats.addPrior(found, new Date().getTime() - begin);
+    } else {
+      lastSeenStats.add(stage, found, new Date().getTime() - begin);
+    }
+    if (!found) {
+      f.destroy();
+      return null;
+    }
+    return f;
   }
 
   /**
@@ -2924,7 +3244,7 @@ public class Region extends Element {
     String someText = "";
     if (repeating != null && repeating._finder != null) {
       finder = repeating._finder;
-      finder.setScreenImage(getScreen().capture(x, y, w, h));
+      repeating.nextScreen(finder);
       finder.setRepeating();
       finder.findAllRepeat();
     } else {
@@ -2937,6 +3257,7 @@ public class Region extends Element {
           img = repeating._image;//Image.create((String) ptn);
           if (img.isValid()) {
             finder = new Finder(getScreen().capture(x, y, w, h), this);
+            finder.setFindAllMaxMatches(repeating._maxMatches);
             finder.findAll(img);
           } else if (img.isText()) {
             findingText = true;
@@ -2951,12 +3272,18 @@ public class Region extends Element {
         if (((Pattern) ptn).isValid()) {
           img = ((Pattern) ptn).getImage();
           finder = new Finder(getScreen().capture(x, y, w, h), this);
+          if (repeating != null) {
+            finder.setFindAllMaxMatches(repeating._maxMatches);
+          }
           finder.findAll((Pattern) ptn);
         }
       } else if (ptn instanceof Image) {
         if (((Image) ptn).isValid()) {
           img = ((Image) ptn);
           finder = new Finder(getScreen().capture(x, y, w, h), this);
+          if (repeating != null) {
+            finder.setFindAllMaxMatches(repeating._maxMatches);
+          }
           finder.findAll((Image) ptn);
         }
       } else {
@@ -2979,6 +3306,18 @@ public class Region extends Element {
 
     public void setShouldStop() {
       shouldStop.set(true);
+      synchronized (shouldStop) {
+        shouldStop.notifyAll();
+      }
+    }
+
+    // like Thread.sleep, but returns early when stopped
+    private void pause(long msec) throws InterruptedException {
+      synchronized (shouldStop) {
+        if (!shouldStop.get()) {
+          shouldStop.wait(msec);
+        }
+      }
     }
 
     public void resetShouldStop() {
@@ -2991,6 +3330,96 @@ public class Region extends Element {
 
     abstract boolean ifSuccessful();
 
+    // -1 not known, 0 screen unchanged (search skipped), 1 screen changed (see Finder.getScanChange)
+    int getScanChange() {
+      return -1;
+    }
+
+    // the finder reused for the next scans (null: not yet known)
+    Finder getRepeatFinder() {
+      return null;
+    }
+
+    // the scans are over: the captures are no longer needed
+    void finished() {
+    }
+
+    // pipelined scans: the capture for the next scan is taken and converted on a helper thread,
+    // timed to be ready, when the next scan is due (while this one is still searched, if scanning without pause)
+    private volatile boolean pipelineStopped = false;
+    private final Object pipelineLock = new Object();
+    private CompletableFuture<PreparedScan> preparedScan = null;
+    private volatile long prepareTime = 0;
+    private long lastPause = -1;
+    private WaitStats waitStats = null;
+
+    // give the finder the capture for this scan (prepared before or taken now)
+    void nextScreen(Finder finder) {
+      PreparedScan scan = takePreparedScan();
+      if (scan == null) {
+        scan = prepareScan(finder.getSpareScreenMat());
+      } else if (waitStats != null) {
+        waitStats.prepared++;
+      }
+      finder.setScreenImage(scan.simg, scan.mat);
+      if (lastPause >= 0 && lastPause <= prepareTime) {
+        // scanning without a real pause: the next capture runs while this one is searched
+        schedulePreparedScan(0);
+      }
+    }
+
+    private PreparedScan prepareScan(Mat mat) {
+      long start = new Date().getTime();
+      ScreenImage simg = captureRepeat();
+      PreparedScan scan = new PreparedScan(simg, Finder.makeScreenMat(simg, mat), start);
+      prepareTime = new Date().getTime() - start;
+      return scan;
+    }
+
+    private void schedulePreparedScan(long delay) {
+      Finder finder = getRepeatFinder();
+      if (!Settings.WaitScanPipelined || finder == null || preparedScan != null) {
+        return;
+      }
+      pipelineStopped = false;
+      Mat mat = finder.getSpareScreenMat();
+      preparedScan = CompletableFuture.supplyAsync(() -> {
+        synchronized (pipelineLock) {
+          return pipelineStopped ? null : prepareScan(mat);
+        }
+      }, CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS, getPipelineExecutor()));
+    }
+
+    // null: none prepared, failed or taken before an own mouse/keyboard action
+    private PreparedScan takePreparedScan() {
+      if (preparedScan == null) {
+        return null;
+      }
+      PreparedScan scan = null;
+      try {
+        scan = preparedScan.join();
+      } catch (RuntimeException e) {
+        log(-1, "pipelined capture failed: %s", e.getMessage());
+      }
+      preparedScan = null;
+      if (scan != null && scan.time <= RobotDesktop.getLastInputTime()) {
+        return null;
+      }
+      return scan;
+    }
+
+    private void stopPipeline() {
+      // a capture not yet started is dropped, one already running is waited for (it writes into the finder's cvMat)
+      pipelineStopped = true;
+      if (preparedScan != null) {
+        preparedScan.cancel(false);
+        synchronized (pipelineLock) {
+          preparedScan = null;
+        }
+      }
+      lastPause = -1;
+    }
+
     double getFindTimeOut() {
       return findTimeout;
     }
@@ -2999,34 +3428,69 @@ public class Region extends Element {
     // return FALSE if otherwise
     // throws Exception if any unexpected error occurs
     boolean repeat(double timeout) {
+      WaitStats stats = new WaitStats();
+      lastWaitStats = stats;
+      waitStats = stats;
+      long begin_t = (new Date()).getTime();
+      boolean success;
+      try {
+        success = doRepeat(timeout, stats);
+      } finally {
+        stopPipeline();
+        finished();
+      }
+      stats.elapsed = (new Date()).getTime() - begin_t;
+      log(logLevel + 1, "repeat: %s %s", success ? "success" : "failed", stats);
+      return success;
+    }
+
+    private boolean doRepeat(double timeout, WaitStats stats) {
       findTimeout = timeout;
       int MaxTimePerScan = (int) (1000.0 / waitScanRate);
+      int MinTimePerScan = MaxTimePerScan;
+      if (Settings.WaitScanAdaptive && Settings.WaitScanRateMax > waitScanRate) {
+        MinTimePerScan = (int) (1000.0 / Settings.WaitScanRateMax);
+      }
+      int timePerScan = MinTimePerScan;
       int timeoutMilli = (int) (timeout * 1000);
       long begin_t = (new Date()).getTime();
+      long previous_find = begin_t;
       do {
         if (null != shouldStop && shouldStop.get()) {
           break;
         }
         long before_find = (new Date()).getTime();
         run();
+        stats.scans++;
+        int scanChange = getScanChange();
+        if (scanChange == 0) {
+          stats.skipped++;
+        }
         if (ifSuccessful()) {
+          stats.latency = (new Date()).getTime() - previous_find;
           return true;
         } else if (timeoutMilli < MaxTimePerScan) {
           return false;
         }
+        previous_find = before_find;
         long after_find = (new Date()).getTime();
-        if (after_find - before_find < MaxTimePerScan) {
-          try {
-            Thread.sleep(MaxTimePerScan - (after_find - before_find));
-          } catch (InterruptedException e) {
-            return false;
-          }
+        // fast, while things are moving, slowing down to the base rate, while nothing happens
+        if (scanChange == 1 || after_find - RobotDesktop.getLastInputTime() < MaxTimePerScan) {
+          timePerScan = MinTimePerScan;
         } else {
-          try {
-            Thread.sleep(10);
-          } catch (InterruptedException e) {
-            return false;
-          }
+          timePerScan = Math.min(MaxTimePerScan, timePerScan * 2);
+        }
+        long scanTime = after_find - before_find;
+        long pauseTime = Math.max(10, timePerScan - scanTime);
+        if (Settings.WaitScanBudget > 0 && Settings.WaitScanBudget < 1) {
+          pauseTime = Math.max(pauseTime, (long) (scanTime * (1 - Settings.WaitScanBudget) / Settings.WaitScanBudget));
+        }
+        lastPause = pauseTime;
+        schedulePreparedScan(Math.max(0, pauseTime - prepareTime));
+        try {
+          pause(pauseTime);
+        } catch (InterruptedException e) {
+          return false;
         }
       } while (begin_t + timeout * 1000 > (new Date()).getTime());
       return false;
@@ -3056,10 +3520,26 @@ public class Region extends Element {
     }
 
     public Match getMatch() {
+      return (_match == null) ? _match : new Match(_match);
+    }
+
+    @Override
+    void finished() {
+      // a repeat after a FindFailed response starts with a new finder
       if (_finder != null) {
         _finder.destroy();
+        _finder = null;
       }
-      return (_match == null) ? _match : new Match(_match);
+    }
+
+    @Override
+    int getScanChange() {
+      return _finder == null ? -1 : _finder.getScanChange();
+    }
+
+    @Override
+    Finder getRepeatFinder() {
+      return _finder;
     }
 
     @Override
@@ -3091,6 +3571,7 @@ public class Region extends Element {
     Iterator<Match> _matches = null;
     Finder _finder = null;
     Image _image = null;
+    int _maxMatches = 0;
 
     public <PSI> RepeatableFindAll(PSI target, Image img) {
       _target = target;
@@ -3105,6 +3586,24 @@ public class Region extends Element {
       return _matches;
     }
 
+    @Override
+    int getScanChange() {
+      return _finder == null ? -1 : _finder.getScanChange();
+    }
+
+    @Override
+    Finder getRepeatFinder() {
+      return _finder;
+    }
+
+    @Override
+    void finished() {
+      // the finder itself stays: it gives the matches
+      if (_finder != null) {
+        _finder.releaseScreenMats();
+      }
+    }
+
     @Override
     public void run() {
       _matches = doFindAll(_target, this);
@@ -3118,59 +3617,44 @@ public class Region extends Element {
   //</editor-fold>
 
   //<editor-fold defaultstate="collapsed" desc="023 Find internal support">
-  private class SubFindRun implements Runnable {
-
-    Match[] mArray;
-    RepeatableFind[] rfArray;
-    ScreenImage base;
-    Object target;
-    Region reg;
-    double waitTime;
-    boolean finished = false;
-    int subN;
-
-    public SubFindRun(double pTime, Match[] pMArray, RepeatableFind[] pRfArray, int pSubN,
-                      ScreenImage pBase, Object pTarget, Region pReg) {
-      subN = pSubN;
-      base = pBase;
-      target = pTarget;
-      reg = pReg;
-      mArray = pMArray;
-      rfArray = pRfArray;
-      waitTime = pTime;
-    }
-
-    @Override
-    public void run() {
-      if (waitTime > 0) {
-        rfArray[subN] = reg.existsStoppableInit(target);
-        mArray[subN] = reg.doExists(rfArray[subN], waitTime);
-      } else {
-        try {
-          mArray[subN] = reg.findInImage(base, target);
-        } catch (Exception ex) {
-          log(-1, "findAnyCollect: image file not found:\n", target);
-        }
-      }
-      hasFinished(true);
+  private static ExecutorService findAnyExecutor = null;
+  private static ExecutorService pipelineExecutor = null;
+
+  // the helper threads of pipelined scans (see Repeatable.nextScreen)
+  private static synchronized ExecutorService getPipelineExecutor() {
+    if (pipelineExecutor == null) {
+      pipelineExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "SikuliX-scan");
+        thread.setDaemon(true);
+        return thread;
+      });
     }
+    return pipelineExecutor;
+  }
 
-    public boolean hasFinished() {
-      return hasFinished(false);
-    }
+  // a capture taken for a coming scan with its cvMat
+  private static class PreparedScan {
+    final ScreenImage simg;
+    final Mat mat;
+    final long time;
 
-    public synchronized boolean hasFinished(boolean state) {
-      if (state) {
-        finished = true;
-      }
-      return finished;
+    PreparedScan(ScreenImage simg, Mat mat, long time) {
+      this.simg = simg;
+      this.mat = mat;
+      this.time = time;
     }
+  }
 
-    public void shouldStop() {
-      if (!hasFinished()) {
-        rfArray[subN].setShouldStop();
-      }
+  // shared by all findAny/waitAny: idle threads are reused and die after a minute
+  private static synchronized ExecutorService getFindAnyExecutor() {
+    if (findAnyExecutor == null) {
+      findAnyExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "SikuliX-findAny");
+        thread.setDaemon(true);
+        return thread;
+      });
     }
+    return findAnyExecutor;
   }
 
   private List<Match> findAnyCollect(double time, List<Object> pList) {
@@ -3180,59 +3664,126 @@ public class Region extends Element {
     }
     Match[] mArray = new Match[pList.size()];
     RepeatableFind[] rfArray = new RepeatableFind[pList.size()];
-    SubFindRun[] theSubs = new SubFindRun[pList.size()];
-    int nobj = 0;
-    ScreenImage base = getScreen().capture(this);
-    for (Object obj : pList) {
-      mArray[nobj] = null;
-
-      if (obj instanceof Pattern || obj instanceof String || obj instanceof Image) {
-        theSubs[nobj] = new SubFindRun(time, mArray, rfArray, nobj, base, obj, this);
-        new Thread(theSubs[nobj]).start();
-      }
-      nobj++;
-    }
-    Debug.log(logLevel, "findAnyCollect: waiting for SubFindRuns");
-    if (time > 0) {
-      boolean any = false;
-      while (!any) {
-        any = false;
-        for (SubFindRun sub : theSubs) {
-          if (sub.hasFinished()) {
-            any = true;
-            break;
+    List<CompletableFuture<Match>> subFinds = new ArrayList<>();
+    List<Integer> subFindIndex = new ArrayList<>();
+    long begin = new Date().getTime();
+    ScreenImage base = time > 0 ? null : getScreen().capture(this);
+    List<Pattern> batch = new ArrayList<>();
+    List<Image> batchImages = new ArrayList<>();
+    List<Integer> batchIndex = new ArrayList<>();
+    for (int nobj = 0; nobj < pList.size(); nobj++) {
+      Object obj = pList.get(nobj);
+      Image batchImage = time > 0 ? null : getBatchImage(obj);
+      if (batchImage != null) {
+        batch.add(obj instanceof Pattern ? (Pattern) obj : new Pattern(batchImage));
+        batchImages.add(batchImage);
+        batchIndex.add(nobj);
+      } else if (obj instanceof Pattern || obj instanceof String || obj instanceof Image) {
+        CompletableFuture<Match> subFind;
+        if (time > 0) {
+          try {
+            rfArray[nobj] = existsStoppableInit(obj);
+          } catch (RuntimeException ex) {
+            log(-1, "findAnyCollect: %s", ex.getMessage());
+            continue;
           }
+          RepeatableFind rf = rfArray[nobj];
+          subFind = CompletableFuture.supplyAsync(() -> doExists(rf, time), getFindAnyExecutor());
+        } else {
+          subFind = CompletableFuture.supplyAsync(() -> {
+            try {
+              return findInImage(base, obj);
+            } catch (IOException ex) {
+              log(-1, "findAnyCollect: image file not found:\n", obj);
+              return null;
+            }
+          }, getFindAnyExecutor());
         }
+        subFinds.add(subFind.handle((match, ex) -> {
+          if (ex != null) {
+            log(-1, "findAnyCollect: %s: %s", obj, ex.getMessage());
+            return null;
+          }
+          log(logLevel, "findAnyCollect: %s: %s [%d msec]", obj,
+              match == null ? "not found" : match, new Date().getTime() - begin);
+          return match;
+        }));
+        subFindIndex.add(nobj);
       }
-      for (SubFindRun sub : theSubs) {
-        sub.shouldStop();
-      }
-    } else {
-      boolean all = false;
-      while (!all) {
-        all = true;
-        for (SubFindRun sub : theSubs) {
-          all &= sub.hasFinished();
+    }
+    if (batch.size() > 0) {
+      Finder batchFinder = new Finder(base, this);
+      List<Match> batchMatches = batchFinder.findEach(batch);
+      batchFinder.destroy();
+      long batchTime = new Date().getTime() - begin;
+      for (int n = 0; n < batchMatches.size(); n++) {
+        Match match = batchMatches.get(n);
+        if (match != null) {
+          Image img = batchImages.get(n);
+          match.setImage(img);
+          match.setTimes(batchTime, batchTime);
+          img.setLastSeen(match.getRect(), match.getScore());
         }
+        log(logLevel, "findAnyCollect: %s: %s [%d msec]", pList.get(batchIndex.get(n)),
+            match == null ? "not found" : match, batchTime);
+        mArray[batchIndex.get(n)] = match;
       }
     }
-    if (time > 0)
-      Debug.log(logLevel, "waitAnyCollect: first SubFindRun finished");
-    else {
-      Debug.log(logLevel, "findAnyCollect: all SubFindRuns finished");
+    if (subFinds.size() > 0) {
+      CompletableFuture<?>[] futures = subFinds.toArray(new CompletableFuture<?>[0]);
+      if (time > 0) {
+        // the first match ends the wait, otherwise all have to give up (timeout or error)
+        CompletableFuture<Void> firstMatch = new CompletableFuture<>();
+        for (CompletableFuture<Match> subFind : subFinds) {
+          subFind.thenAccept(match -> {
+            if (match != null) {
+              firstMatch.complete(null);
+            }
+          });
+        }
+        CompletableFuture.anyOf(firstMatch, CompletableFuture.allOf(futures)).join();
+        for (RepeatableFind rf : rfArray) {
+          if (rf != null) {
+            rf.setShouldStop();
+          }
+        }
+        Debug.log(logLevel, "waitAnyCollect: first match or all targets finished [%d msec]", new Date().getTime() - begin);
+      } else {
+        CompletableFuture.allOf(futures).join();
+        Debug.log(logLevel, "findAnyCollect: all targets finished [%d msec]", new Date().getTime() - begin);
+      }
+      for (int n = 0; n < subFinds.size(); n++) {
+        // the stopped ones, that did not finish in time, do not count
+        mArray[subFindIndex.get(n)] = subFinds.get(n).getNow(null);
+      }
     }
-    nobj = 0;
+    int nobj = 0;
     for (Match match : mArray) {
       if (match != null) {
         match.setIndex(nobj);
         mList.add(match);
-      } else {
       }
       nobj++;
     }
     return mList;
   }
 
+  // image targets, that can be searched together in one batch (text needs its own search)
+  private Image getBatchImage(Object target) {
+    Image img = null;
+    if (target instanceof Pattern) {
+      return ((Pattern) target).isValid() ? ((Pattern) target).getImage() : null;
+    } else if (target instanceof Image) {
+      img = (Image) target;
+    } else if (target instanceof String && !((String) target).startsWith("\t")) {
+      img = Image.create((String) target);
+    }
+    if (img != null && img.isValid() && !img.isText()) {
+      return img;
+    }
+    return null;
+  }
+
   private Match findInImage(ScreenImage base, Object target) throws IOException {
     Finder finder = null;
     Match match = null;
@@ -3288,6 +3839,7 @@ public class Region extends Element {
       //match.setImage(img);
       img.setLastSeen(match.getRect(), match.getScore());
     }
+    finder.destroy();
     return match;
   }
 
@@ -3749,7 +4301,7 @@ public class Region extends Element {
     Observing.addRunningObserver(this);
     while (observing && stop_t > (new Date()).getTime()) {
       long before_find = (new Date()).getTime();
-      ScreenImage simg = getScreen().capture(x, y, w, h);
+      ScreenImage simg = captureRepeat();
       if (!regionObserver.update(simg)) {
         observing = false;
         break;
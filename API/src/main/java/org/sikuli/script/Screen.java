@@ -521,12 +521,16 @@ public class Screen extends Region implements IScreen, EventObserver {
 
   /**
    * create a ScreenImage with given rectangle on this screen.
+   * <br>with Settings.CaptureMaxAge taken from a recent capture of the whole screen (see captureShared)
    *
    * @param rect The Rectangle to be captured
    * @return the image of the region
    */
   @Override
   public ScreenImage capture(Rectangle rect) {
+    if (Settings.CaptureMaxAge > 0 && ScreenDevice.get(getID()).asRectangle().contains(rect)) {
+      return captureShared(rect, Settings.CaptureMaxAge);
+    }
     lastCaptureTime = new Date().getTime();
     ScreenImage simg = new ScreenImage(rect, ScreenDevice.capture(rect)); //globalRobot.captureScreen(rect);
     if (Settings.FindProfiling) {
@@ -540,6 +544,37 @@ public class Screen extends Region implements IScreen, EventObserver {
     return simg;
   }
 
+  /**
+   * create a ScreenImage with given rectangle on this screen,
+   * cropped from a capture of the whole screen shared with other consumers (see FrameBus)
+   * <br>the screen is only captured again, if the newest capture is older than maxAge
+   * <br>a rectangle not completely on this screen is captured on its own
+   *
+   * @param rect The Rectangle to be captured
+   * @param maxAge max age (msec) of a capture to be shared
+   * @return the image of the region
+   */
+  public ScreenImage captureShared(Rectangle rect, long maxAge) {
+    ScreenDevice screenDevice = ScreenDevice.get(getID());
+    if (!screenDevice.asRectangle().contains(rect)) {
+      return capture(rect);
+    }
+    lastCaptureTime = new Date().getTime();
+    ScreenFrame frame = screenDevice.getFrameBus().getFrame(maxAge);
+    ScreenImage simg;
+    try {
+      simg = frame.getSub(rect);
+    } finally {
+      frame.release();
+    }
+    if (Settings.FindProfiling) {
+      Debug.logp("[FindProfiling] Screen.captureShared [%d x %d]: %d msec",
+          rect.width, rect.height, new Date().getTime() - lastCaptureTime);
+    }
+    lastScreenImage = simg;
+    return simg;
+  }
+
   /**
    * create a ScreenImage with given region on this screen
    *
@@ -11,6 +11,7 @@ import org.opencv.core.Mat;
 import org.opencv.imgproc.Imgproc;
 import org.sikuli.basics.Debug;
 import org.sikuli.support.Commons;
+import org.sikuli.support.devices.ScreenFrame;
 
 import java.awt.*;
 import java.awt.image.*;
@@ -37,6 +38,7 @@ public class ScreenImage {
 	Rectangle rect;
 	BufferedImage bimg;
 	String filename = null;
+	ScreenFrame frame = null;
 
 	/**
 	 * create ScreenImage with given
@@ -59,6 +61,25 @@ public class ScreenImage {
 		this.rect = rect;
 	}
 
+	/**
+	 * create ScreenImage as part of a frame shared by many consumers (see FrameBus)
+	 *
+	 * @param rect the rectangle it was taken from
+	 * @param img the BufferedImage (a subimage of the frame's image)
+	 * @param frame the frame
+	 */
+	public ScreenImage(Rectangle rect, BufferedImage img, ScreenFrame frame) {
+		this(rect, img);
+		this.frame = frame;
+	}
+
+	/**
+	 * @return the shared frame this image is part of (null: captured on its own)
+	 */
+	public ScreenFrame getFrame() {
+		return frame;
+	}
+
 	/**
 	 * create ScreenImage from given
 	 *
@@ -78,7 +99,7 @@ public class ScreenImage {
       return this;
     }
     BufferedImage img = bimg.getSubimage(sub.x - x, sub.y - y, sub.width, sub.height);
-    return new ScreenImage(sub, img);
+    return new ScreenImage(sub, img, frame);
   }
 
 	/**
@@ -22,11 +22,15 @@ import java.awt.image.AffineTransformOp;
 import java.awt.image.BufferedImage;
 import java.awt.image.DataBufferByte;
 import java.awt.image.DataBufferInt;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
 import java.io.*;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.net.*;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.IntBuffer;
 import java.security.CodeSource;
 import java.util.*;
@@ -1468,24 +1472,9 @@ public class Commons {
 
   public static Mat makeMat(BufferedImage bImg, boolean asBGR) {
     if (bImg.getType() == BufferedImage.TYPE_INT_RGB) {
-      int[] data = ((DataBufferInt) bImg.getRaster().getDataBuffer()).getData();
-      ByteBuffer byteBuffer = ByteBuffer.allocate(data.length * 4);
-      IntBuffer intBuffer = byteBuffer.asIntBuffer();
-      intBuffer.put(data);
-      Mat aMat = new Mat(bImg.getHeight(), bImg.getWidth(), CvType.CV_8UC4);
-      aMat.put(0, 0, byteBuffer.array());
-      Mat oMatBGR = new Mat(bImg.getHeight(), bImg.getWidth(), CvType.CV_8UC3);
-      Mat oMatA = new Mat(bImg.getHeight(), bImg.getWidth(), CvType.CV_8UC1);
-      List<Mat> mixIn = new ArrayList<Mat>(Arrays.asList(new Mat[]{aMat}));
-      List<Mat> mixOut = new ArrayList<Mat>(Arrays.asList(new Mat[]{oMatA, oMatBGR}));
-      //A 0 - R 1 - G 2 - B 3 -> A 0 - B 1 - G 2 - R 3
-      Core.mixChannels(mixIn, mixOut, new MatOfInt(0, 0, 1, 3, 2, 2, 3, 1));
-      return oMatBGR;
+      return makeMatFromIntRGB(bImg, null);
     } else if (bImg.getType() == BufferedImage.TYPE_3BYTE_BGR) {
-      byte[] data = ((DataBufferByte) bImg.getRaster().getDataBuffer()).getData();
-      Mat aMatBGR = new Mat(bImg.getHeight(), bImg.getWidth(), CvType.CV_8UC3);
-      aMatBGR.put(0, 0, data);
-      return aMatBGR;
+      return makeMatFrom3ByteBGR(bImg, null);
     } else if (bImg.getType() == BufferedImage.TYPE_BYTE_INDEXED
         || bImg.getType() == BufferedImage.TYPE_BYTE_BINARY) {
       String bImgType = "BYTE_BINARY";
@@ -1533,11 +1522,163 @@ public class Commons {
     return getNewMat();
   }
 
+  /**
+   * convert the given image to a BGR cvMat reusing the given cvMat if possible
+   * <br>(no new native memory, if it already has the needed size and type)
+   * <br>intended for repeated captures of the same size (e.g. while waiting for an image)
+   *
+   * @param bImg the image (typically a screen capture)
+   * @param mat  a cvMat to be reused (might be null)
+   * @return the cvMat containing the image (might not be the given one)
+   */
+  public static Mat makeMat(BufferedImage bImg, Mat mat) {
+    if (bImg.getType() == BufferedImage.TYPE_INT_RGB) {
+      return makeMatFromIntRGB(bImg, mat);
+    } else if (bImg.getType() == BufferedImage.TYPE_3BYTE_BGR) {
+      return makeMatFrom3ByteBGR(bImg, mat);
+    }
+    return makeMat(bImg);
+  }
+
+  private static Mat makeMatFromIntRGB(BufferedImage bImg, Mat mat) {
+    int width = bImg.getWidth();
+    int height = bImg.getHeight();
+    WritableRaster raster = bImg.getRaster();
+    int[] data = ((DataBufferInt) raster.getDataBuffer()).getData();
+    int stride = ((SinglePixelPackedSampleModel) raster.getSampleModel()).getScanlineStride();
+    // the image might be a sub image sharing the data of its parent
+    int start = raster.getDataBuffer().getOffset()
+        - raster.getSampleModelTranslateY() * stride - raster.getSampleModelTranslateX();
+    // int 0x00RRGGBB stored little endian is B G R 0 in memory: the only copy needed
+    ByteBuffer buffer = getMatBuffer(width * height * 4);
+    IntBuffer intBuffer = buffer.asIntBuffer();
+    if (stride == width) {
+      intBuffer.put(data, start, width * height);
+    } else {
+      for (int row = 0; row < height; row++) {
+        intBuffer.put(data, start + row * stride, width);
+      }
+    }
+    Mat mBGRA = new Mat(height, width, CvType.CV_8UC4, buffer);
+    if (mat == null) {
+      mat = getNewMat();
+    }
+    Imgproc.cvtColor(mBGRA, mat, Imgproc.COLOR_BGRA2BGR);
+    mBGRA.release();
+    releaseMatBuffer(buffer);
+    return mat;
+  }
+
+  private static Mat makeMatFrom3ByteBGR(BufferedImage bImg, Mat mat) {
+    int width = bImg.getWidth();
+    int height = bImg.getHeight();
+    WritableRaster raster = bImg.getRaster();
+    byte[] data = ((DataBufferByte) raster.getDataBuffer()).getData();
+    ComponentSampleModel sampleModel = (ComponentSampleModel) raster.getSampleModel();
+    int stride = sampleModel.getScanlineStride();
+    int start = raster.getDataBuffer().getOffset()
+        - raster.getSampleModelTranslateY() * stride - raster.getSampleModelTranslateX() * 3;
+    if (mat == null) {
+      mat = getNewMat();
+    }
+    mat.create(height, width, CvType.CV_8UC3);
+    if (stride == width * 3 && mat.isContinuous()) {
+      mat.put(0, 0, data, start, width * height * 3);
+    } else {
+      for (int row = 0; row < height; row++) {
+        mat.put(row, 0, data, start + row * stride, width * 3);
+      }
+    }
+    return mat;
+  }
+
+  private static final Map<Integer, Deque<ByteBuffer>> matBuffers = new HashMap<>();
+  private static final int matBuffersPerSize = 2;
+  private static final int matBuffersSizes = 8;
+
+  private static ByteBuffer getMatBuffer(int size) {
+    synchronized (matBuffers) {
+      Deque<ByteBuffer> buffers = matBuffers.get(size);
+      if (buffers != null && !buffers.isEmpty()) {
+        return buffers.pop();
+      }
+    }
+    return ByteBuffer.allocateDirect(size).order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  private static void releaseMatBuffer(ByteBuffer buffer) {
+    synchronized (matBuffers) {
+      Deque<ByteBuffer> buffers = matBuffers.get(buffer.capacity());
+      if (buffers == null) {
+        if (matBuffers.size() >= matBuffersSizes) {
+          matBuffers.clear();
+        }
+        buffers = new ArrayDeque<>();
+        matBuffers.put(buffer.capacity(), buffers);
+      }
+      if (buffers.size() < matBuffersPerSize) {
+        buffers.push(buffer);
+      }
+    }
+  }
+
   public final static String PNG = "png";
   public final static String dotPNG = "." + PNG;
 
+  /**
+   * create a BufferedImage from the given cvMat
+   * <br>8-bit cvMats with 1 (gray), 3 (BGR) or 4 (BGRA) channels are copied directly to the raster,
+   * others are converted using an in-memory PNG
+   *
+   * @param mat the cvMat
+   * @return a new BufferedImage (TYPE_BYTE_GRAY, TYPE_3BYTE_BGR or TYPE_4BYTE_ABGR)
+   */
   public static BufferedImage getBufferedImage(Mat mat) {
-    return getBufferedImage(mat, dotPNG);
+    return getBufferedImage(mat, (BufferedImage) null);
+  }
+
+  /**
+   * create a BufferedImage from the given cvMat, reusing the given BufferedImage if possible
+   * <br>the given image is only reused, if it has the same size and the fitting type,
+   * otherwise a new BufferedImage is returned
+   *
+   * @param mat   the cvMat
+   * @param reuse an image to be overwritten (might be null)
+   * @return the BufferedImage containing the cvMat's content
+   */
+  public static BufferedImage getBufferedImage(Mat mat, BufferedImage reuse) {
+    if (SX.isNull(mat) || mat.empty() || mat.depth() != CvType.CV_8U) {
+      return getBufferedImage(mat, dotPNG);
+    }
+    int type;
+    switch (mat.channels()) {
+      case 1:
+        type = BufferedImage.TYPE_BYTE_GRAY;
+        break;
+      case 3:
+        type = BufferedImage.TYPE_3BYTE_BGR;
+        break;
+      case 4:
+        type = BufferedImage.TYPE_4BYTE_ABGR;
+        break;
+      default:
+        return getBufferedImage(mat, dotPNG);
+    }
+    BufferedImage bImg = reuse;
+    if (SX.isNull(bImg) || bImg.getType() != type
+        || bImg.getWidth() != mat.cols() || bImg.getHeight() != mat.rows()
+        || bImg.getRaster().getParent() != null) {
+      bImg = new BufferedImage(mat.cols(), mat.rows(), type);
+    }
+    byte[] data = ((DataBufferByte) bImg.getRaster().getDataBuffer()).getData();
+    if (type == BufferedImage.TYPE_4BYTE_ABGR) {
+      //B 0 - G 1 - R 2 - A 3 -> A 0 - B 1 - G 2 - R 3
+      Mat mABGR = getNewMat(mat.size(), 4, -1);
+      Core.mixChannels(Arrays.asList(mat), Arrays.asList(mABGR), new MatOfInt(3, 0, 0, 1, 1, 2, 2, 3));
+      mat = mABGR;
+    }
+    mat.get(0, 0, data);
+    return bImg;
   }
 
   public static BufferedImage getBufferedImage(Mat mat, String type) {
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2010-2021, sikuli.org, sikulix.com - MIT license
+ */
+package org.sikuli.support.devices;
+
+import org.sikuli.basics.Debug;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * INTERNAL USE: the captures of one ScreenDevice shared by all consumers (waits, observers, ...) on this screen
+ * <br>a consumer asks for a frame not older than its max age: the newest frame is taken, if it is young enough,
+ * if a capture is just running, its frame is waited for, only otherwise the whole screen is captured again
+ * <br>so with many consumers there is only one capture per tick of the fastest one
+ * <br>a frame taken before the last own mouse/keyboard action is never shared (see RobotDesktop.getLastInputTime)
+ */
+public class FrameBus {
+
+  private static final String me = "FrameBus: ";
+  private static final int lvl = 3;
+
+  private final ScreenDevice device;
+
+  private ScreenFrame current = null;
+  private boolean capturing = false;
+  private long captures = 0;
+  private long shared = 0;
+
+  FrameBus(ScreenDevice device) {
+    this.device = device;
+  }
+
+  /**
+   * the returned frame is retained for the caller, who has to release it when done
+   *
+   * @param maxAge max age (msec) of a frame already captured, to be taken instead of a new capture
+   * @return a frame of the whole screen
+   */
+  public ScreenFrame getFrame(long maxAge) {
+    synchronized (this) {
+      while (true) {
+        if (isFresh(current, maxAge) && current.retain()) {
+          shared++;
+          return current;
+        }
+        if (!capturing) {
+          break;
+        }
+        try {
+          wait();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          break;
+        }
+      }
+      capturing = true;
+    }
+    ScreenFrame frame = null;
+    try {
+      long start = System.currentTimeMillis();
+      BufferedImage image = device.capture();
+      frame = new ScreenFrame(device.asRectangle(), image, start);
+      frame.retain();
+      Debug.log(lvl + 1, me + "%s captured in %d msec", frame, System.currentTimeMillis() - start);
+    } finally {
+      synchronized (this) {
+        capturing = false;
+        if (frame != null) {
+          if (current != null) {
+            current.release();
+          }
+          current = frame;
+          captures++;
+        }
+        notifyAll();
+      }
+    }
+    return frame;
+  }
+
+  private static boolean isFresh(ScreenFrame frame, long maxAge) {
+    if (frame == null || frame.getTime() <= RobotDesktop.getLastInputTime()) {
+      return false;
+    }
+    return System.currentTimeMillis() - frame.getTime() <= maxAge;
+  }
+
+  /**
+   * release the newest frame (the next consumer captures again)
+   */
+  public synchronized void clear() {
+    if (current != null) {
+      current.release();
+      current = null;
+    }
+  }
+
+  /**
+   * @return number of captures done
+   */
+  public synchronized long getCaptures() {
+    return captures;
+  }
+
+  /**
+   * @return number of requests, that got a frame already captured
+   */
+  public synchronized long getShared() {
+    return shared;
+  }
+
+  public synchronized String toString() {
+    return String.format("FrameBus[%s captures: %d shared: %d]", device, captures, shared);
+  }
+}
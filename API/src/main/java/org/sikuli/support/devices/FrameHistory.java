@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2010-2021, sikuli.org, sikulix.com - MIT license
+ */
+package org.sikuli.support.devices;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * INTERNAL USE: the recent captures of the whole screen of one ScreenDevice with their time (see Settings.CaptureHistory)
+ * <br>a ring of a fixed number of frames, the newest replaces the oldest
+ * <br>the pixels are kept off-heap in direct ByteBuffers (one per slot, reused), so the history does not load the heap
+ * <br>a frame is copied back into a BufferedImage only when requested (frameAt, framesSince)
+ */
+public class FrameHistory {
+
+  private final Rectangle bounds;
+  private final IntBuffer[] slots;
+  private final long[] times;
+  private int next = 0;
+  private int count = 0;
+
+  FrameHistory(Rectangle bounds, int size) {
+    this.bounds = new Rectangle(bounds);
+    slots = new IntBuffer[size];
+    times = new long[size];
+  }
+
+  /**
+   * @return max number of frames kept
+   */
+  public int capacity() {
+    return slots.length;
+  }
+
+  /**
+   * @return number of frames kept currently
+   */
+  public synchronized int size() {
+    return count;
+  }
+
+  /**
+   * keep a capture of the whole screen (replacing the oldest, if the history is full)
+   *
+   * @param image the capture (must have the size of the screen)
+   * @param time  time (millis) when the capture was started
+   */
+  public synchronized void add(BufferedImage image, long time) {
+    int width = bounds.width;
+    int height = bounds.height;
+    if (image.getWidth() != width || image.getHeight() != height) {
+      return;
+    }
+    if (slots[next] == null) {
+      slots[next] = ByteBuffer.allocateDirect(width * height * 4).order(ByteOrder.nativeOrder()).asIntBuffer();
+    }
+    IntBuffer slot = slots[next];
+    slot.clear();
+    if (image.getType() == BufferedImage.TYPE_INT_RGB && image.getRaster().getDataBuffer() instanceof DataBufferInt
+        && ((DataBufferInt) image.getRaster().getDataBuffer()).getData().length == width * height) {
+      slot.put(((DataBufferInt) image.getRaster().getDataBuffer()).getData());
+    } else {
+      slot.put(image.getRGB(0, 0, width, height, null, 0, width));
+    }
+    times[next] = time;
+    next = (next + 1) % slots.length;
+    count = Math.min(count + 1, slots.length);
+  }
+
+  /**
+   * @param time time (millis)
+   * @return the newest frame captured not after the given time (null: none)
+   */
+  public synchronized ScreenFrame frameAt(long time) {
+    for (int n = 1; n <= count; n++) {
+      int slot = (next - n + slots.length) % slots.length;
+      if (times[slot] <= time) {
+        return makeFrame(slot);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @param time time (millis)
+   * @return the frames captured since the given time (oldest first, empty: none)
+   */
+  public synchronized List<ScreenFrame> framesSince(long time) {
+    List<ScreenFrame> frames = new ArrayList<>();
+    for (int n = count; n > 0; n--) {
+      int slot = (next - n + slots.length) % slots.length;
+      if (times[slot] >= time) {
+        frames.add(makeFrame(slot));
+      }
+    }
+    return frames;
+  }
+
+  /**
+   * forget all frames (the buffers are kept for reuse)
+   */
+  public synchronized void clear() {
+    next = 0;
+    count = 0;
+  }
+
+  private ScreenFrame makeFrame(int slot) {
+    BufferedImage image = new BufferedImage(bounds.width, bounds.height, BufferedImage.TYPE_INT_RGB);
+    IntBuffer pixels = slots[slot].duplicate();
+    pixels.rewind();
+    pixels.get(((DataBufferInt) image.getRaster().getDataBuffer()).getData());
+    return new ScreenFrame(bounds, image, times[slot]);
+  }
+
+  public synchronized String toString() {
+    return String.format("FrameHistory[%d,%d %dx%d frames: %d of %d]",
+        bounds.x, bounds.y, bounds.width, bounds.height, count, slots.length);
+  }
+}
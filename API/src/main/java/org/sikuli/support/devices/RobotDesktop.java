@@ -66,6 +66,51 @@ public class RobotDesktop extends Robot implements IRobot {
     setAutoDelay(stdAutoDelay);
   }
 
+  private static volatile long lastInputTime = 0;
+
+  /**
+   * @return time (millis) of the last mouse or keyboard action done by SikuliX (0 = none yet)
+   */
+  public static long getLastInputTime() {
+    return lastInputTime;
+  }
+
+  @Override
+  public synchronized void mouseMove(int x, int y) {
+    lastInputTime = new Date().getTime();
+    super.mouseMove(x, y);
+  }
+
+  @Override
+  public synchronized void mousePress(int buttons) {
+    lastInputTime = new Date().getTime();
+    super.mousePress(buttons);
+  }
+
+  @Override
+  public synchronized void mouseRelease(int buttons) {
+    lastInputTime = new Date().getTime();
+    super.mouseRelease(buttons);
+  }
+
+  @Override
+  public synchronized void mouseWheel(int wheelAmt) {
+    lastInputTime = new Date().getTime();
+    super.mouseWheel(wheelAmt);
+  }
+
+  @Override
+  public synchronized void keyPress(int keycode) {
+    lastInputTime = new Date().getTime();
+    super.keyPress(keycode);
+  }
+
+  @Override
+  public synchronized void keyRelease(int keycode) {
+    lastInputTime = new Date().getTime();
+    super.keyRelease(keycode);
+  }
+
   @Override
   public void delay(int ms) {
     if (ms < 0) {
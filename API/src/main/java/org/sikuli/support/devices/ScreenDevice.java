@@ -1,8 +1,10 @@
 package org.sikuli.support.devices;
 
+import org.sikuli.basics.Settings;
 import org.sikuli.script.Image;
 import org.sikuli.script.Region;
 import org.sikuli.script.Screen;
+import org.sikuli.support.Commons;
 import org.sikuli.support.RunTime;
 import org.sikuli.util.OverlayCapturePrompt;
 
@@ -220,7 +222,7 @@ public class ScreenDevice extends Devices {
 
 
   public BufferedImage capture() {
-    return getRobot().createScreenCapture(asRectangle());
+    return createScreenCapture(asRectangle());
   }
 
   public static BufferedImage capture(Rectangle rect) {
@@ -231,7 +233,52 @@ public class ScreenDevice extends Devices {
       screen = primary();
       rect = new Rectangle(0, 0, 1, 1);
     }
-    return screen.getRobot().createScreenCapture(rect);
+    return screen.createScreenCapture(rect);
+  }
+
+  // with Settings.CaptureXShm on Linux using the MIT-SHM extension, if available, otherwise by the Robot
+  // captures of the whole screen are kept in the history (Settings.CaptureHistory)
+  private BufferedImage createScreenCapture(Rectangle rect) {
+    long time = System.currentTimeMillis();
+    BufferedImage img = null;
+    if (Settings.CaptureXShm && Commons.runningLinux()) {
+      XShmCapture xshm = XShmCapture.get();
+      if (xshm != null) {
+        img = xshm.capture(rect);
+      }
+    }
+    if (img == null) {
+      img = getRobot().createScreenCapture(rect);
+    }
+    if (Settings.CaptureHistory > 0 && rect.equals(bounds)) {
+      getFrameHistory().add(img, time);
+    }
+    return img;
+  }
+
+  private FrameHistory frameHistory = null;
+
+  /**
+   * @return the recent captures of this whole screen (empty if Settings.CaptureHistory is 0)
+   */
+  public synchronized FrameHistory getFrameHistory() {
+    int size = Math.max(1, Settings.CaptureHistory);
+    if (frameHistory == null || frameHistory.capacity() != size) {
+      frameHistory = new FrameHistory(bounds, size);
+    }
+    return frameHistory;
+  }
+
+  private FrameBus frameBus = null;
+
+  /**
+   * @return the captures of this screen shared by all consumers
+   */
+  public synchronized FrameBus getFrameBus() {
+    if (frameBus == null) {
+      frameBus = new FrameBus(this);
+    }
+    return frameBus;
   }
 
   private static AtomicBoolean capturePromptActive = new AtomicBoolean(false);
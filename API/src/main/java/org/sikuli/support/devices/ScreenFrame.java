@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2010-2021, sikuli.org, sikulix.com - MIT license
+ */
+package org.sikuli.support.devices;
+
+import org.opencv.core.Mat;
+import org.sikuli.script.ScreenImage;
+import org.sikuli.support.Commons;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+/**
+ * INTERNAL USE: a capture of a whole screen, shared by all consumers on this screen (see FrameBus)
+ * <br>immutable: the image must not be changed, consumers only take crops (getSub)
+ * <br>the cvMat of the image is converted with the first request and then shared too
+ * <br>reference counted: the cvMat is released, when the last consumer released the frame
+ */
+public class ScreenFrame {
+
+  private final Rectangle bounds;
+  private final BufferedImage image;
+  private final long time;
+
+  private Mat mat = null;
+  private int references = 1;
+
+  ScreenFrame(Rectangle bounds, BufferedImage image, long time) {
+    this.bounds = new Rectangle(bounds);
+    this.image = image;
+    this.time = time;
+  }
+
+  /**
+   * @return the screen rectangle of the frame
+   */
+  public Rectangle getBounds() {
+    return new Rectangle(bounds);
+  }
+
+  /**
+   * @return the captured image (must not be changed)
+   */
+  public BufferedImage getImage() {
+    return image;
+  }
+
+  /**
+   * @return time (millis) when the capture was started
+   */
+  public long getTime() {
+    return time;
+  }
+
+  /**
+   * take a reference to the frame (to be released when done)
+   *
+   * @return false if the frame was already released by all consumers
+   */
+  public synchronized boolean retain() {
+    if (references < 1) {
+      return false;
+    }
+    references++;
+    return true;
+  }
+
+  /**
+   * give back a reference taken before: the last one releases the cvMat
+   */
+  public synchronized void release() {
+    if (references < 1) {
+      return;
+    }
+    references--;
+    if (references == 0 && mat != null) {
+      mat.release();
+      mat = null;
+    }
+  }
+
+  /**
+   * only while holding a reference, the returned cvMat must not be changed
+   *
+   * @return the image as BGR cvMat (converted with the first request)
+   */
+  public synchronized Mat getMat() {
+    if (mat == null) {
+      mat = Commons.makeMat(image);
+    }
+    return mat;
+  }
+
+  /**
+   * the returned ScreenImage shares the pixels of the frame
+   *
+   * @param rect the wanted screen rectangle
+   * @return the part of the frame inside the given rectangle (null: nothing of it is in the frame)
+   */
+  public ScreenImage getSub(Rectangle rect) {
+    Rectangle sub = bounds.intersection(rect);
+    if (sub.isEmpty()) {
+      return null;
+    }
+    BufferedImage img = image.getSubimage(sub.x - bounds.x, sub.y - bounds.y, sub.width, sub.height);
+    return new ScreenImage(sub, img, this);
+  }
+
+  public String toString() {
+    return String.format("ScreenFrame[%d,%d %dx%d at %d]", bounds.x, bounds.y, bounds.width, bounds.height, time);
+  }
+}
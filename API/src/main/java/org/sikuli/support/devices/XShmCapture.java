@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2010-2021, sikuli.org, sikulix.com - MIT license
+ */
+package org.sikuli.support.devices;
+
+import com.sun.jna.NativeLong;
+import com.sun.jna.Pointer;
+import com.sun.jna.platform.unix.X11;
+import org.sikuli.basics.Debug;
+import org.sikuli.natives.linux.jna.XShm;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+
+/**
+ * INTERNAL USE: screen capture on Linux with the MIT-SHM extension of X11 (see Settings.CaptureXShm)
+ * <br>the X server writes the pixels into a shared memory segment, that is reused for every capture
+ * <br>the 32-bit pixels of a 24-bit TrueColor screen (B G R x in memory) are the ints of TYPE_INT_RGB,
+ * so the BufferedImage is filled by one bulk copy (no conversion per pixel)
+ * <br>only used with a local display (DISPLAY :n), otherwise (or on any problem) null is returned
+ * and the capture is done by the Robot
+ */
+class XShmCapture {
+
+  private static final String me = "XShmCapture: ";
+  private static final int lvl = 3;
+
+  private static XShmCapture instance = null;
+  private static boolean opened = false;
+
+  private final X11.Display display;
+  private final X11.Window root;
+  private final X11.Visual visual;
+  private final int depth;
+  private final Rectangle rootBounds;
+  private final XShm.XShmSegmentInfo shminfo = new XShm.XShmSegmentInfo();
+  private XShm.XImage image = null;
+  private boolean usable = true;
+
+  /**
+   * @return the capture for the local display (null: not available)
+   */
+  static synchronized XShmCapture get() {
+    if (!opened) {
+      opened = true;
+      instance = open();
+    }
+    if (instance != null && !instance.usable) {
+      return null;
+    }
+    return instance;
+  }
+
+  private static XShmCapture open() {
+    String displayName = System.getenv("DISPLAY");
+    if (displayName == null || !displayName.startsWith(":")) {
+      Debug.log(lvl, me + "not used: no local display (DISPLAY=%s)", displayName);
+      return null;
+    }
+    X11.Display display = null;
+    try {
+      display = X11.INSTANCE.XOpenDisplay(null);
+      if (display == null) {
+        Debug.log(lvl, me + "not used: display %s cannot be opened", displayName);
+        return null;
+      }
+      if (!XShm.INSTANCE.XShmQueryExtension(display)) {
+        Debug.log(lvl, me + "not used: display %s has no MIT-SHM", displayName);
+        X11.INSTANCE.XCloseDisplay(display);
+        return null;
+      }
+      XShmCapture capture = new XShmCapture(display);
+      if (!capture.attach()) {
+        capture.close();
+        return null;
+      }
+      Debug.log(lvl, me + "using MIT-SHM on display %s (%dx%d depth %d)", displayName,
+          capture.rootBounds.width, capture.rootBounds.height, capture.depth);
+      return capture;
+    } catch (UnsatisfiedLinkError | RuntimeException e) {
+      Debug.log(lvl, me + "not used: %s", e.getMessage());
+      if (display != null) {
+        X11.INSTANCE.XCloseDisplay(display);
+      }
+      return null;
+    }
+  }
+
+  private XShmCapture(X11.Display display) {
+    this.display = display;
+    root = X11.INSTANCE.XDefaultRootWindow(display);
+    X11.XWindowAttributes attributes = new X11.XWindowAttributes();
+    X11.INSTANCE.XGetWindowAttributes(display, root, attributes);
+    visual = attributes.visual;
+    depth = attributes.depth;
+    rootBounds = new Rectangle(0, 0, attributes.width, attributes.height);
+  }
+
+  // one segment for the whole root window, marked to be removed, when the last one detached (or the process ends)
+  private boolean attach() {
+    if (depth != 24 && depth != 32) {
+      Debug.log(lvl, me + "not used: screen depth %d", depth);
+      return false;
+    }
+    long size = (long) rootBounds.width * rootBounds.height * 4;
+    shminfo.shmid = XShm.SysV.INSTANCE.shmget(XShm.SysV.IPC_PRIVATE, new NativeLong(size), XShm.SysV.IPC_CREAT | 0600);
+    if (shminfo.shmid < 0) {
+      Debug.log(lvl, me + "not used: no shared memory segment (%d bytes)", size);
+      return false;
+    }
+    shminfo.shmaddr = XShm.SysV.INSTANCE.shmat(shminfo.shmid, null, 0);
+    if (Pointer.nativeValue(shminfo.shmaddr) == -1) {
+      shminfo.shmaddr = null;
+      XShm.SysV.INSTANCE.shmctl(shminfo.shmid, XShm.SysV.IPC_RMID, null);
+      Debug.log(lvl, me + "not used: shared memory segment not attachable");
+      return false;
+    }
+    shminfo.readOnly = 0;
+    boolean attached = XShm.INSTANCE.XShmAttach(display, shminfo);
+    X11.INSTANCE.XSync(display, false);
+    XShm.SysV.INSTANCE.shmctl(shminfo.shmid, XShm.SysV.IPC_RMID, null);
+    if (!attached) {
+      Debug.log(lvl, me + "not used: segment not attached by the X server");
+    }
+    return attached;
+  }
+
+  private void close() {
+    if (shminfo.shmaddr != null) {
+      XShm.INSTANCE.XShmDetach(display, shminfo);
+      XShm.SysV.INSTANCE.shmdt(shminfo.shmaddr);
+      shminfo.shmaddr = null;
+    }
+    freeImage();
+    X11.INSTANCE.XCloseDisplay(display);
+  }
+
+  // the pixels are in the segment: only the XImage struct itself is freed
+  private void freeImage() {
+    if (image != null) {
+      X11.INSTANCE.XFree(image.getPointer());
+      image = null;
+    }
+  }
+
+  // an XImage of the given size on the segment (kept, while the size of the captures does not change)
+  private boolean prepareImage(int width, int height) {
+    if (image != null && image.width == width && image.height == height) {
+      return true;
+    }
+    freeImage();
+    Pointer pointer = XShm.INSTANCE.XShmCreateImage(display, visual, depth, X11.ZPixmap, shminfo.shmaddr,
+        shminfo, width, height);
+    if (pointer == null) {
+      return false;
+    }
+    image = new XShm.XImage(pointer);
+    if (image.bits_per_pixel != 32 || image.byte_order != 0 || image.red_mask.longValue() != 0xff0000
+        || image.green_mask.longValue() != 0xff00 || image.blue_mask.longValue() != 0xff) {
+      Debug.log(lvl, me + "not used: pixel format %d bits, byte order %d", image.bits_per_pixel, image.byte_order);
+      usable = false;
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * @param rect the screen rectangle (global X11 coordinates)
+   * @return the captured image as TYPE_INT_RGB (null: not possible, the Robot should be used,
+   * as with a rectangle not completely inside the root window)
+   */
+  synchronized BufferedImage capture(Rectangle rect) {
+    Rectangle area = new Rectangle(rect);
+    if (!usable || area.isEmpty() || !rootBounds.contains(area) || !prepareImage(area.width, area.height)) {
+      return null;
+    }
+    if (!XShm.INSTANCE.XShmGetImage(display, root, image.getPointer(), area.x, area.y, new NativeLong(-1))) {
+      Debug.log(lvl, me + "XShmGetImage failed for %s", area);
+      return null;
+    }
+    BufferedImage bimg = new BufferedImage(area.width, area.height, BufferedImage.TYPE_INT_RGB);
+    int[] pixels = ((DataBufferInt) bimg.getRaster().getDataBuffer()).getData();
+    Pointer data = shminfo.shmaddr;
+    int rowBytes = image.bytes_per_line;
+    if (rowBytes == area.width * 4) {
+      data.read(0, pixels, 0, pixels.length);
+    } else {
+      for (int row = 0; row < area.height; row++) {
+        data.read((long) row * rowBytes, pixels, row * area.width, area.width);
+      }
+    }
+    return bimg;
+  }
+}
@@ -140,7 +140,7 @@ class PatternPaneScreenshot extends JPanel implements ChangeListener, ComponentL
       new Thread(() -> {
         try {
           Finder f = new Finder(_simg);
-          f.findAll(new Pattern(patFilename).similar(0.00001));
+          f.findAll(new Pattern(patFilename).similar(0.00001).maxMatches(MAX_NUM_MATCHING));
 
           int count = 0;
           while (f.hasNext()) {